@@ -0,0 +1,56 @@
+#!/usr/bin/env bash
+# Measures time-to-first-request: from JVM launch until /actuator/health answers (any HTTP status,
+# so a node without a reachable database still counts as started).
+#
+#   ./mvnw -Pfast-startup package -DskipTests
+#   scripts/startup-benchmark.sh [runs]
+#
+# Compares the plain jar, the plain jar with the worker profile, and the AOT + CDS worker build.
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${BENCHMARK_PORT:-18080}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="$(ls "$ROOT"/target/khmertranslateAi-*.jar | grep -v '\.original$' | head -n 1)"
+APP_DIR="$ROOT/target/application"
+
+time_to_first_request() {
+	local workdir="$1"
+	shift
+	local start end pid
+	start=$(date +%s%N)
+	(cd "$workdir" && exec java "$@" --server.port="$PORT" >/dev/null 2>&1) &
+	pid=$!
+	until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/actuator/health")" != "000" ]; do
+		if ! kill -0 "$pid" 2>/dev/null; then
+			echo "startup failed" >&2
+			return 1
+		fi
+		sleep 0.02
+	done
+	end=$(date +%s%N)
+	kill "$pid"
+	wait "$pid" 2>/dev/null || true
+	echo $(((end - start) / 1000000))
+}
+
+benchmark() {
+	local name="$1"
+	shift
+	local samples=()
+	for _ in $(seq "$RUNS"); do
+		samples+=("$(time_to_first_request "$@")")
+	done
+	local median
+	median=$(printf '%s\n' "${samples[@]}" | sort -n | awk '{ a[NR] = $1 } END { print a[int((NR + 1) / 2)] }')
+	printf '%-16s median %6s ms   runs: %s\n' "$name" "$median" "${samples[*]}"
+}
+
+benchmark "jar" "$ROOT" -jar "$JAR"
+benchmark "jar worker" "$ROOT" -Dspring.profiles.active=worker -jar "$JAR"
+if [ -f "$APP_DIR/application.jsa" ]; then
+	benchmark "aot+cds worker" "$APP_DIR" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+		-Dspring.profiles.active=worker -jar "$(basename "$JAR")"
+else
+	echo "No CDS archive in $APP_DIR, build with -Pfast-startup to benchmark the AOT + CDS worker."
+fi
@@ -2,12 +2,19 @@ package com.translatesubtitle.khmertranslateAi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class KhmertranslateAiApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(KhmertranslateAiApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(KhmertranslateAiApplication.class, args);
+		// The headless directory run is done once its runner returns; scheduler threads would keep the JVM up
+		if (context.getEnvironment().matchesProfiles("cli")) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
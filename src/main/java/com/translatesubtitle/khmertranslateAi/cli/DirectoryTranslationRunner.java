@@ -0,0 +1,228 @@
+package com.translatesubtitle.khmertranslateAi.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.translatesubtitle.khmertranslateAi.dto.CachedTranslation;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.dto.TokenUsage;
+import com.translatesubtitle.khmertranslateAi.service.SRTService;
+import com.translatesubtitle.khmertranslateAi.service.SubtitleParsingService;
+import com.translatesubtitle.khmertranslateAi.service.TranslationCacheService;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.GeminiApiConfig;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.GeminiTranslationService;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.TokenUsageService;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Headless run mode ({@code --spring.profiles.active=cli}) for translating subtitle archives on
+ * disk without the REST API: walks {@code translation.cli.input-dir} for {@code .srt} files,
+ * {@code translation.cli.parallel-files} at a time, and writes {@code movie.khmer.srt} next to
+ * {@code movie.srt} for every target language. Files go through the same
+ * {@link GeminiTranslationService} pipeline, translation cache and token budgets as uploads; the
+ * files in progress share one {@code gemini.api.concurrent-requests} limit. A non-option argument,
+ * if given, overrides the input directory.
+ * <p>
+ * Resumable: an output is written to a temporary file and only renamed into place when every line
+ * translated, so existing outputs are skipped on the next run and incomplete ones are retried.
+ * Progress and throughput are logged every {@code translation.cli.report-interval-seconds}.
+ */
+@Component
+@Profile("cli")
+public class DirectoryTranslationRunner implements ApplicationRunner, ExitCodeGenerator {
+
+	private static final Logger logger = LoggerFactory.getLogger(DirectoryTranslationRunner.class);
+	private static final String SRT_EXTENSION = ".srt";
+	private static final String TEMP_SUFFIX = ".part";
+
+	private final SubtitleParsingService parsingService;
+	private final GeminiTranslationService translationService;
+	private final TranslationCacheService cacheService;
+	private final SRTService srtService;
+	private final TokenUsageService tokenUsage;
+	private final GeminiApiConfig geminiApiConfig;
+
+	@Value("${translation.cli.input-dir:}")
+	private String inputDir;
+
+	@Value("${translation.cli.languages:Khmer}")
+	private List<String> languages;
+
+	@Value("${translation.cli.parallel-files:2}")
+	private int parallelFiles;
+
+	@Value("${translation.cli.report-interval-seconds:30}")
+	private long reportIntervalSeconds;
+
+	// Used as the job id for token accounting of this run
+	private final String runId = "cli-" + UUID.randomUUID().toString().substring(0, 8);
+	private final AtomicInteger translated = new AtomicInteger();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private final AtomicLong entries = new AtomicLong();
+	private volatile long startedAt;
+
+	public DirectoryTranslationRunner(SubtitleParsingService parsingService, GeminiTranslationService translationService,
+			TranslationCacheService cacheService, SRTService srtService, TokenUsageService tokenUsage,
+			GeminiApiConfig geminiApiConfig) {
+		this.parsingService = parsingService;
+		this.translationService = translationService;
+		this.cacheService = cacheService;
+		this.srtService = srtService;
+		this.tokenUsage = tokenUsage;
+		this.geminiApiConfig = geminiApiConfig;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		// Option args (--spring.profiles.active=cli, --translation.cli.input-dir=...) are bound properties, not paths
+		List<String> positional = args.getNonOptionArgs();
+		Path root = Paths.get(positional.isEmpty() ? inputDir : positional.get(0));
+		if (!Files.isDirectory(root)) {
+			throw new IllegalArgumentException("Set translation.cli.input-dir (or pass it as argument) to a directory: " + root);
+		}
+		List<Path> subtitles;
+		try (Stream<Path> walk = Files.walk(root)) {
+			subtitles = walk.filter(Files::isRegularFile)
+					.filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(SRT_EXTENSION))
+					.sorted().collect(Collectors.toList());
+		}
+		Set<Path> stems = subtitles.stream().map(DirectoryTranslationRunner::stem).collect(Collectors.toSet());
+		List<Path> sources = subtitles.stream().filter(path -> !isOutput(path, stems)).collect(Collectors.toList());
+		logger.info("Run {}: {} subtitle files under {} into {}, {} files at a time", runId, sources.size(), root,
+				languages, parallelFiles);
+
+		startedAt = System.nanoTime();
+		Disposable reporter = Flux.interval(Duration.ofSeconds(reportIntervalSeconds)).subscribe(tick -> report("Progress"));
+		try {
+			Flux.fromIterable(sources)
+					.flatMap(source -> Flux.fromIterable(languages)
+							.concatMap(language -> translateFile(source, language)), Math.max(1, parallelFiles))
+					// Files side by side must not multiply the Gemini requests in flight
+					.contextWrite(GeminiTranslationService.sharedCallLimit(geminiApiConfig::getConcurrentRequests))
+					.blockLast();
+		} finally {
+			reporter.dispose();
+		}
+		report("Finished");
+	}
+
+	@Override
+	public int getExitCode() {
+		return failed.get() > 0 ? 1 : 0;
+	}
+
+	private Mono<Void> translateFile(Path source, String language) {
+		Path output = outputFile(source, language);
+		if (Files.exists(output)) {
+			skipped.incrementAndGet();
+			return Mono.empty();
+		}
+		return Mono.fromCallable(() -> parsingService.entries(List.of(source)))
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMap(parsed -> {
+					if (parsed.isEmpty()) {
+						logger.warn("Skipping {}: no subtitle entries", source);
+						failed.incrementAndGet();
+						return Mono.empty();
+					}
+					String cacheKey = cacheService.cacheKey(parsed, language);
+					Optional<CachedTranslation> cached = cacheService.get(cacheKey);
+					Mono<List<SubtitleEntry>> translation = cached.isPresent() ? Mono.just(cached.get().entries())
+							: translationService.translateSubtitles(parsed, language)
+									.contextWrite(TokenUsageService.context(runId, source.toString(), null));
+					return translation
+							// Writing is blocking file IO
+							.publishOn(Schedulers.boundedElastic())
+							.doOnNext(result -> write(source, output, language, parsed, cacheKey, result, cached.isPresent()))
+							.then();
+				})
+				.onErrorResume(error -> {
+					// One bad file must not stop the run; it is retried on the next one
+					logger.error("Could not translate {} into {}: {}", source, language, error.getMessage());
+					failed.incrementAndGet();
+					return Mono.empty();
+				});
+	}
+
+	private void write(Path source, Path output, String language, List<SubtitleEntry> parsed, String cacheKey,
+			List<SubtitleEntry> result, boolean fromCache) {
+		long failedLines = result.stream().filter(GeminiTranslationService::isFailedTranslation).count();
+		if (result.size() != parsed.size() || failedLines > 0) {
+			logger.warn("{} into {}: {} of {} lines failed, output not written", source, language, failedLines, parsed.size());
+			failed.incrementAndGet();
+			return;
+		}
+		String srtContent = srtService.generateSRT(result);
+		Path temp = output.resolveSibling(output.getFileName() + TEMP_SUFFIX);
+		try {
+			srtService.saveSRTToFile(srtContent, temp.toString());
+			Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.error("Could not write {}: {}", output, e.getMessage());
+			failed.incrementAndGet();
+			return;
+		}
+		if (!fromCache) {
+			cacheService.put(cacheKey, new CachedTranslation(srtContent, List.copyOf(result)));
+		}
+		translated.incrementAndGet();
+		entries.addAndGet(result.size());
+		logger.debug("Translated {} into {} ({} lines)", source, language, result.size());
+	}
+
+	private void report(String stage) {
+		double seconds = Math.max(1e-3, (System.nanoTime() - startedAt) / 1e9);
+		long tokens = tokenUsage.jobUsage(runId).map(TokenUsage::getTotalTokens).orElse(0L);
+		logger.info("{} {}: {} translated, {} skipped, {} failed; {} lines in {}s ({} lines/s, {} files/min), {} tokens",
+				stage, runId, translated.get(), skipped.get(), failed.get(), entries.get(), Math.round(seconds),
+				String.format(Locale.ROOT, "%.1f", entries.get() / seconds),
+				String.format(Locale.ROOT, "%.1f", translated.get() * 60 / seconds), tokens);
+	}
+
+	// movie.srt -> movie.khmer.srt
+	private static Path outputFile(Path source, String language) {
+		String name = source.getFileName().toString();
+		String base = name.substring(0, name.length() - SRT_EXTENSION.length());
+		return source.resolveSibling(base + "." + language.trim().toLowerCase(Locale.ROOT) + SRT_EXTENSION);
+	}
+
+	// movie.srt -> movie, lower-cased and in its directory
+	private static Path stem(Path path) {
+		String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+		return path.resolveSibling(name.substring(0, name.length() - SRT_EXTENSION.length()));
+	}
+
+	// An earlier output (movie.thai.srt next to movie.srt, in any language) is not a source; movie.en.srt alone is
+	private static boolean isOutput(Path path, Set<Path> stems) {
+		String stem = stem(path).getFileName().toString();
+		int dot = stem.lastIndexOf('.');
+		return dot > 0 && stems.contains(path.resolveSibling(stem.substring(0, dot)));
+	}
+}
@@ -0,0 +1,135 @@
+package com.translatesubtitle.khmertranslateAi.config;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.translatesubtitle.khmertranslateAi.serviceImpl.GeminiApiConfig;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Outbound HTTP stack used for every call to the Gemini API.
+ * <p>
+ * Replaces the bare {@code WebClient.builder()} with a Reactor Netty client that has an
+ * explicitly sized connection pool, connect and response (read) timeouts, HTTP/2 (negotiated via ALPN,
+ * falling back to HTTP/1.1), gzip for response bodies and a raised codec buffer limit for large
+ * batched responses. Gzipped request bodies ({@code gemini.http.request-compression-enabled}) are off
+ * by default until the Gemini endpoint is confirmed to accept {@code Content-Encoding: gzip}. Pool and client metrics are published to Micrometer
+ * ({@code reactor.netty.connection.provider.*} and {@code reactor.netty.http.client.*}).
+ */
+@Configuration
+public class GeminiHttpClientConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(GeminiHttpClientConfig.class);
+
+	@Value("${gemini.http.max-connections:50}")
+	private int maxConnections;
+
+	@Value("${gemini.http.pending-acquire-max-count:500}")
+	private int pendingAcquireMaxCount;
+
+	@Value("${gemini.http.pending-acquire-timeout-ms:45000}")
+	private long pendingAcquireTimeoutMs;
+
+	@Value("${gemini.http.max-idle-time-ms:30000}")
+	private long maxIdleTimeMs;
+
+	@Value("${gemini.http.max-life-time-ms:300000}")
+	private long maxLifeTimeMs;
+
+	@Value("${gemini.http.evict-in-background-ms:60000}")
+	private long evictInBackgroundMs;
+
+	@Value("${gemini.http.connect-timeout-ms:10000}")
+	private int connectTimeoutMs;
+
+	@Value("${gemini.http.response-timeout-seconds:180}")
+	private long responseTimeoutSeconds;
+
+	@Value("${gemini.http.http2-enabled:true}")
+	private boolean http2Enabled;
+
+	@Value("${gemini.http.compression-enabled:true}")
+	private boolean compressionEnabled;
+
+	@Value("${gemini.http.request-compression-enabled:false}")
+	private boolean requestCompressionEnabled;
+
+	@Value("${gemini.http.request-compression-min-bytes:2048}")
+	private int requestCompressionMinBytes;
+
+	@Value("${gemini.http.max-in-memory-size-mb:16}")
+	private int maxInMemorySizeMb;
+
+	@Value("${gemini.http.metrics-enabled:true}")
+	private boolean metricsEnabled;
+
+	@Bean(destroyMethod = "dispose")
+	ConnectionProvider geminiConnectionProvider() {
+		return ConnectionProvider.builder("gemini")
+				.maxConnections(maxConnections)
+				.pendingAcquireMaxCount(pendingAcquireMaxCount)
+				.pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+				.maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+				.maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+				.evictInBackground(Duration.ofMillis(evictInBackgroundMs))
+				.metrics(metricsEnabled)
+				.build();
+	}
+
+	@Bean
+	HttpClient geminiHttpClient(ConnectionProvider geminiConnectionProvider) {
+		HttpClient httpClient = HttpClient.create(geminiConnectionProvider)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+				.option(ChannelOption.SO_KEEPALIVE, true)
+				// Read timeout: maximum wait for the response after the request has been sent
+				.responseTimeout(Duration.ofSeconds(responseTimeoutSeconds))
+				// Sends Accept-Encoding: gzip and transparently inflates compressed responses
+				.compress(compressionEnabled)
+				// The query string carries the API key, so only the path is used as the uri tag
+				.metrics(metricsEnabled, GeminiHttpClientConfig::stripQuery);
+
+		if (http2Enabled) {
+			httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+		}
+		return httpClient;
+	}
+
+	@Bean
+	WebClient geminiWebClient(HttpClient geminiHttpClient, GeminiApiConfig geminiApiConfig) {
+		int maxInMemorySize = maxInMemorySizeMb * 1024 * 1024;
+		ExchangeStrategies strategies = ExchangeStrategies.builder()
+				.codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxInMemorySize))
+				.build();
+
+		WebClient.Builder builder = WebClient.builder()
+				.baseUrl(geminiApiConfig.getGeminiApiUrl())
+				.defaultHeader("Content-Type", "application/json")
+				.clientConnector(new ReactorClientHttpConnector(geminiHttpClient))
+				.exchangeStrategies(strategies);
+
+		if (requestCompressionEnabled) {
+			builder.filter(new GzipRequestBodyFilter(requestCompressionMinBytes));
+		}
+
+		logger.info("Gemini HTTP client: maxConnections={}, http2={}, compression={}, requestCompression={}, maxInMemorySize={}MB",
+				maxConnections, http2Enabled, compressionEnabled, requestCompressionEnabled, maxInMemorySizeMb);
+		return builder.build();
+	}
+
+	private static String stripQuery(String uri) {
+		int queryStart = uri.indexOf('?');
+		return queryStart >= 0 ? uri.substring(0, queryStart) : uri;
+	}
+}
@@ -0,0 +1,27 @@
+package com.translatesubtitle.khmertranslateAi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Bounded parallel scheduler for the CPU work around Gemini calls (prompt building, response
+ * splitting and JSON parsing), so none of it runs on the Reactor Netty event loop that every
+ * outgoing request shares.
+ */
+@Configuration
+public class GeminiSchedulerConfig {
+
+	// 0 = one thread per available processor
+	@Value("${gemini.cpu.threads:0}")
+	private int threads;
+
+	@Bean(destroyMethod = "dispose")
+	Scheduler geminiCpuScheduler() {
+		int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		return Schedulers.newParallel("gemini-cpu", size, true);
+	}
+}
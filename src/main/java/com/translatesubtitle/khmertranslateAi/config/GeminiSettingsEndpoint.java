@@ -0,0 +1,117 @@
+package com.translatesubtitle.khmertranslateAi.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.OptionalParameter;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.translatesubtitle.khmertranslateAi.serviceImpl.GeminiApiConfig;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Actuator endpoint ({@code /actuator/geminisettings}) for tuning the Gemini throughput settings
+ * without a restart. GET returns the active values; POST with a JSON body of the settings to change,
+ * e.g. {@code {"batchSize": 200, "concurrentRequests": 2}}, validates them against the same
+ * constraints as {@code gemini.api.*} at startup and applies all or none of them.
+ * <p>
+ * Delay, retries and backoff apply to the next batch dispatched, batch size to the next batch formed,
+ * concurrency to pipelines started afterwards (and at once to the strong-tier gate of
+ * {@code ModelRouter}). The active values are published as the {@code gemini.settings} gauge.
+ */
+@Component
+@Endpoint(id = "geminisettings")
+public class GeminiSettingsEndpoint {
+
+	private static final Logger logger = LoggerFactory.getLogger(GeminiSettingsEndpoint.class);
+
+	private final GeminiApiConfig geminiApiConfig;
+	private final Validator validator;
+
+	public GeminiSettingsEndpoint(GeminiApiConfig geminiApiConfig, Validator validator, MeterRegistry meterRegistry) {
+		this.geminiApiConfig = geminiApiConfig;
+		this.validator = validator;
+
+		gauge(meterRegistry, "batch-size", GeminiApiConfig::getBatchSize);
+		gauge(meterRegistry, "concurrent-requests", GeminiApiConfig::getConcurrentRequests);
+		gauge(meterRegistry, "delay-between-batch-request-ms", GeminiApiConfig::getDelayBetweenBatchRequestMs);
+		gauge(meterRegistry, "max-retries", GeminiApiConfig::getMaxRetries);
+		gauge(meterRegistry, "initial-backoff-seconds", GeminiApiConfig::getInitialBackoffSeconds);
+		gauge(meterRegistry, "max-rate-limit-backoff-seconds", GeminiApiConfig::getMaxRateLimitBackoffSeconds);
+	}
+
+	@ReadOperation
+	public Map<String, Object> settings() {
+		return settings(geminiApiConfig);
+	}
+
+	@WriteOperation
+	public Map<String, Object> update(@OptionalParameter Integer batchSize, @OptionalParameter Integer concurrentRequests,
+			@OptionalParameter Long delayBetweenBatchRequestMs, @OptionalParameter Integer maxRetries,
+			@OptionalParameter Long initialBackoffSeconds, @OptionalParameter Long maxRateLimitBackoffSeconds) {
+		synchronized (geminiApiConfig) {
+			GeminiApiConfig candidate = geminiApiConfig.copyTunables();
+			if (batchSize != null) {
+				candidate.setBatchSize(batchSize);
+			}
+			if (concurrentRequests != null) {
+				candidate.setConcurrentRequests(concurrentRequests);
+			}
+			if (delayBetweenBatchRequestMs != null) {
+				candidate.setDelayBetweenBatchRequestMs(delayBetweenBatchRequestMs);
+			}
+			if (maxRetries != null) {
+				candidate.setMaxRetries(maxRetries);
+			}
+			if (initialBackoffSeconds != null) {
+				candidate.setInitialBackoffSeconds(initialBackoffSeconds);
+			}
+			if (maxRateLimitBackoffSeconds != null) {
+				candidate.setMaxRateLimitBackoffSeconds(maxRateLimitBackoffSeconds);
+			}
+
+			Set<ConstraintViolation<GeminiApiConfig>> violations = validator.validate(candidate);
+			if (!violations.isEmpty()) {
+				String reason = violations.stream()
+						.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+						.sorted()
+						.collect(Collectors.joining(", "));
+				throw new InvalidEndpointRequestException("Invalid Gemini settings: " + reason, reason);
+			}
+
+			Map<String, Object> previous = settings(geminiApiConfig);
+			geminiApiConfig.applyTunables(candidate);
+			logger.info("Gemini settings changed from {} to {}", previous, settings(geminiApiConfig));
+		}
+		return settings(geminiApiConfig);
+	}
+
+	private static Map<String, Object> settings(GeminiApiConfig config) {
+		Map<String, Object> settings = new LinkedHashMap<>();
+		settings.put("batchSize", config.getBatchSize());
+		settings.put("concurrentRequests", config.getConcurrentRequests());
+		settings.put("delayBetweenBatchRequestMs", config.getDelayBetweenBatchRequestMs());
+		settings.put("maxRetries", config.getMaxRetries());
+		settings.put("initialBackoffSeconds", config.getInitialBackoffSeconds());
+		settings.put("maxRateLimitBackoffSeconds", config.getMaxRateLimitBackoffSeconds());
+		return settings;
+	}
+
+	private void gauge(MeterRegistry meterRegistry, String setting, ToDoubleFunction<GeminiApiConfig> value) {
+		Gauge.builder("gemini.settings", geminiApiConfig, value).tag("setting", setting)
+				.description("Active value of a runtime-tunable gemini.api setting").register(meterRegistry);
+	}
+}
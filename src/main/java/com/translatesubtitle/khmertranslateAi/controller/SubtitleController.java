@@ -1,16 +1,26 @@
 package com.translatesubtitle.khmertranslateAi.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -18,17 +28,29 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.translatesubtitle.khmertranslateAi.dto.AdmissionDecision;
+import com.translatesubtitle.khmertranslateAi.dto.JobStatus;
 import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.dto.TranslationJob;
 import com.translatesubtitle.khmertranslateAi.service.FileProcessingService;
 import com.translatesubtitle.khmertranslateAi.service.SRTService;
 import com.translatesubtitle.khmertranslateAi.service.SubtitleParsingService;
-import com.translatesubtitle.khmertranslateAi.serviceImpl.GeminiTranslationService;
+import com.translatesubtitle.khmertranslateAi.service.TranslationJobService;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.AdmissionControlService;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.BulkTranslationService;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.DistributedJobQueueService;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.IncrementalTranslationService;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.TokenUsageService;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api")
@@ -40,15 +62,35 @@ public class SubtitleController {
 	private FileProcessingService fileProcessing;
 	@Autowired
 	private SRTService srtService;
+	@Autowired
+	private IncrementalTranslationService incrementalTranslationService;
+	@Autowired
+	private AdmissionControlService admissionControl;
+	@Autowired
+	private DistributedJobQueueService distributedQueue;
+	@Autowired
+	private TokenUsageService tokenUsage;
+	@Autowired
+	private BulkTranslationService bulkTranslation;
 
-	private final GeminiTranslationService translationService;
+	private final TranslationJobService jobService;
 
-	public SubtitleController(GeminiTranslationService translationService) {
-		this.translationService = translationService;
+	public SubtitleController(TranslationJobService jobService) {
+		this.jobService = jobService;
 	}
 
-	private List<SubtitleEntry> entries = new ArrayList<>();
-	private List<Path> processFiles = new ArrayList<>();
+	private static final String DEFAULT_LANGUAGE = "Khmer";
+	private static final String JOB_ID_HEADER = "X-Job-Id";
+	private static final String PROGRESS_HEADER = "X-Translation-Progress";
+	private static final String TRANSLATED_ENTRIES_HEADER = "X-Translated-Entries";
+	private static final long UNKNOWN_UPLOAD_BYTES = 100 * 1024;
+
+	@Value("${translation.multi-language.combined:true}")
+	private boolean combinedLanguages;
+
+	// Jobs are translated by the worker nodes of the shared database queue instead of in this request
+	@Value("${translation.queue.distributed:false}")
+	private boolean distributed;
 
 	@PostMapping("/upload")
 	public ResponseEntity<?> handleFileUpload(@RequestParam MultipartFile[] files) {
@@ -56,76 +98,353 @@ public class SubtitleController {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please provide one or more files to upload.");
 		}
 
-		List<MultipartFile> validFiles = Arrays.stream(files).filter(file -> file != null && !file.isEmpty())
-				.collect(Collectors.toList());
+		List<MultipartFile> validFiles = validFiles(files);
+		if (validFiles.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+					.body("Please select one or more valid files to upload.");
+		}
+		AdmissionDecision uploadDecision = admissionControl.checkUpload(totalSize(validFiles));
+		if (!uploadDecision.admitted()) {
+			return rejected(uploadDecision);
+		}
+		TranslationJob job = jobService.createJob(fileProcessing.processFiles(validFiles));
+		if (distributed) {
+			distributedQueue.register(job);
+		}
 
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+				"jobId", job.getJobId(),
+				"message", job.getFiles().size() + " file uplaod sucessfully!"));
+	}
+
+	/**
+	 * Upload a revised version of a subtitle and translate only what changed. The previous translations
+	 * come either from a previous job ({@code previousJobId}) or from its source and output SRT files.
+	 */
+	@PostMapping("/update")
+	public ResponseEntity<?> handleUpdate(@RequestParam MultipartFile[] files,
+			@RequestParam(required = false) String previousJobId,
+			@RequestParam(required = false) MultipartFile previousSource,
+			@RequestParam(required = false) MultipartFile previousTranslation,
+			@RequestParam(defaultValue = DEFAULT_LANGUAGE) List<String> languages) {
+		List<MultipartFile> validFiles = validFiles(files);
 		if (validFiles.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST)
 					.body("Please select one or more valid files to upload.");
 		}
-		processFiles = fileProcessing.processFiles(validFiles);
-		entries = parsingService.entries(processFiles);
+		AdmissionDecision uploadDecision = admissionControl.checkUpload(totalSize(validFiles));
+		if (!uploadDecision.admitted()) {
+			return rejected(uploadDecision);
+		}
+
+		Map<String, Map<String, String>> previousTranslations = new LinkedHashMap<>();
+		if (previousJobId != null) {
+			Optional<TranslationJob> previousJob = jobService.findJob(previousJobId);
+			if (previousJob.isEmpty() || previousJob.get().getTranslations().isEmpty()) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No translated job found with id " + previousJobId);
+			}
+			for (String language : languages) {
+				previousTranslations.put(language, incrementalTranslationService
+						.translationMemory(previousJob.get().getTranslatedFiles(language).values()));
+			}
+		} else if (previousSource != null && !previousSource.isEmpty()
+				&& previousTranslation != null && !previousTranslation.isEmpty()) {
+			if (languages.size() != 1) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+						.body("A previous translation file covers exactly one language.");
+			}
+			// Separate directories: both uploads usually carry the same file name (movie.srt)
+			Path source = fileProcessing.processFiles(List.of(previousSource)).get(0);
+			try {
+				Path translation = fileProcessing.processFiles(List.of(previousTranslation)).get(0);
+				try {
+					previousTranslations.put(languages.get(0), incrementalTranslationService.translationMemory(
+							parsingService.entries(List.of(source)), parsingService.entries(List.of(translation))));
+				} finally {
+					srtService.deleteDirectoryRecursively(translation.getParent());
+				}
+			} finally {
+				srtService.deleteDirectoryRecursively(source.getParent());
+			}
+		} else {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+					.body("Provide previousJobId, or both previousSource and previousTranslation files.");
+		}
 
-		return ResponseEntity.status(HttpStatus.ACCEPTED).body(processFiles.size() + " file uplaod sucessfully!");
+		TranslationJob job = jobService.createJob(fileProcessing.processFiles(validFiles));
+		job.setPreviousTranslations(previousTranslations);
+		return translateAdmitted(job, languages, combinedLanguages);
 	}
 
+	/**
+	 * Translate an uploaded job into one or more languages ({@code languages=Khmer,Thai,Lao}). With
+	 * {@code combined=true} each batch asks for all languages in one structured response.
+	 */
 	@PostMapping("/startTranslate")
-	public ResponseEntity<?> startTranslate() {
-		List<SubtitleEntry> block = translationService.translateSubtitles(entries, "Khmer").block();
-		for (Path p : processFiles) {
-			try {
-				srtService.generateAndSaveSRT(block, p.toString());
+	public ResponseEntity<?> startTranslate(@RequestParam(required = false) String jobId,
+			@RequestParam(defaultValue = DEFAULT_LANGUAGE) List<String> languages,
+			@RequestParam(required = false) Boolean combined) {
+		if (distributed) {
+			return enqueue(jobId, languages);
+		}
+		Optional<TranslationJob> job = resolveJob(jobId);
+		if (job.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No uploaded job to translate.");
+		}
+		boolean combinedRequest = combined != null ? combined : combinedLanguages;
+		return translateAdmitted(job.get(), languages, combinedRequest);
+	}
+
+	private ResponseEntity<?> enqueue(String jobId, List<String> languages) {
+		String id = jobId != null ? jobId : jobService.latestJob().map(TranslationJob::getJobId).orElse(null);
+		Optional<Integer> batches;
+		try {
+			batches = id == null ? Optional.empty() : distributedQueue.enqueue(id, languages);
+		} catch (TranslationJobService.JobAlreadyStartedException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("jobId", id, "message", e.getMessage()));
+		}
+		if (batches.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No uploaded job to translate.");
+		}
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+				"jobId", id,
+				"batches", batches.get(),
+				"message", "Translation queued, poll /api/jobs/" + id + " for progress."));
+	}
+
+	/**
+	 * Offline bulk translation of uploaded jobs through asynchronous batch prediction: results arrive
+	 * within hours instead of seconds, without using the interactive rate limits or running slots.
+	 * Poll {@code /api/bulk/{bulkId}}; the jobs download like interactively translated ones.
+	 */
+	@PostMapping("/bulk")
+	public ResponseEntity<?> startBulk(@RequestParam List<String> jobIds,
+			@RequestParam(defaultValue = DEFAULT_LANGUAGE) List<String> languages) {
+		List<TranslationJob> jobs = new ArrayList<>();
+		for (String jobId : jobIds) {
+			Optional<TranslationJob> job = jobService.findJob(jobId);
+			if (job.isEmpty()) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No uploaded job with id " + jobId);
+			}
+			jobs.add(job.get());
+		}
+		if (tokenUsage.isDailyBudgetExhausted()) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.header(HttpHeaders.RETRY_AFTER, Long.toString(tokenUsage.secondsUntilMidnight()))
+					.body("Daily token budget exhausted.");
+		}
+		String bulkId;
+		try {
+			bulkId = bulkTranslation.submit(jobs, languages);
+		} catch (TranslationJobService.JobAlreadyStartedException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+		}
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+				"bulkId", bulkId,
+				"jobs", jobIds,
+				"message", "Bulk translation submitted, poll /api/bulk/" + bulkId + " for progress."));
+	}
+
+	@GetMapping("/bulk/{bulkId}")
+	public ResponseEntity<?> bulkStatus(@PathVariable String bulkId) {
+		return bulkTranslation.status(bulkId).<ResponseEntity<?>>map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("No bulk job found with id " + bulkId));
+	}
+
+	/**
+	 * Progress of a job; with the distributed queue any node can answer for any job.
+	 */
+	@GetMapping("/jobs/{jobId}")
+	public ResponseEntity<?> jobStatus(@PathVariable String jobId) {
+		if (distributed) {
+			return distributedQueue.status(jobId).<ResponseEntity<?>>map(ResponseEntity::ok)
+					.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("No job found with id " + jobId));
+		}
+		Optional<TranslationJob> job = jobService.findJob(jobId);
+		if (job.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No job found with id " + jobId);
+		}
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("jobId", job.get().getJobId());
+		status.put("status", job.get().getStatus());
+		status.put("files", job.get().getFiles().stream().map(p -> p.getFileName().toString()).toList());
+		status.put("entries", job.get().getTotalEntries());
+		status.put("languages", job.get().getTranslations().keySet());
+		tokenUsage.jobUsage(jobId).ifPresent(usage -> status.put("usage", usage));
+		status.put("fileUsage", tokenUsage.fileUsage(jobId));
+		return ResponseEntity.ok(status);
+	}
+
+	/**
+	 * Stops a job: queued batches are dropped, in-flight Gemini requests are aborted, its running slot
+	 * is released and its uploaded and translated files are deleted. The job's status stays queryable.
+	 */
+	@PostMapping("/jobs/{jobId}/cancel")
+	public ResponseEntity<?> cancel(@PathVariable String jobId) {
+		boolean cancelled = distributed && distributedQueue.cancel(jobId);
+		Optional<TranslationJob> job = jobService.findJob(jobId);
+		if (job.isPresent()) {
+			cancelled |= jobService.cancel(jobId);
+		}
+		if (cancelled) {
+			return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("jobId", jobId, "message", "Job cancelled."));
+		}
+		if (job.isPresent()) {
+			return ResponseEntity.status(HttpStatus.CONFLICT)
+					.body(Map.of("jobId", jobId, "status", job.get().getStatus(), "message", "Job already finished."));
+		}
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No job found with id " + jobId);
+	}
+
+	/**
+	 * Upload and translate in one request, with the translation pipelined behind the upload: the body
+	 * is a single raw SRT file (not multipart, which the container buffers completely before the
+	 * controller runs), and each batch goes to Gemini as soon as its entries have arrived. The file
+	 * is stored as it streams in, so the job can be downloaded like any other; its id is returned in
+	 * the {@code X-Job-Id} header. Always translated on this node, also in distributed mode.
+	 */
+	@PostMapping("/upload/stream")
+	public ResponseEntity<?> uploadAndTranslate(HttpServletRequest request,
+			@RequestParam(defaultValue = "upload.srt") String fileName,
+			@RequestParam(defaultValue = DEFAULT_LANGUAGE) List<String> languages,
+			@RequestParam(required = false) Boolean combined) throws IOException {
+		long uploadBytes = request.getContentLengthLong();
+		AdmissionDecision uploadDecision = admissionControl.checkUpload(Math.max(0, uploadBytes));
+		if (!uploadDecision.admitted()) {
+			return rejected(uploadDecision);
+		}
+		boolean combinedRequest = combined != null ? combined : combinedLanguages;
+		Path file = fileProcessing.newJobFile(fileName);
+		TranslationJob job = jobService.createStreamingJob(file);
+		// Chunked uploads have no length; estimate them like an average file
+		long estimatedTokens = admissionControl.estimateTokens(uploadBytes > 0 ? uploadBytes : UNKNOWN_UPLOAD_BYTES,
+				languages.size(), combinedRequest);
+		// The copy to disk is only opened once admitted, and always closed, so a refused job leaves no open file behind
+		ResponseEntity<?> response = runAdmitted(job, estimatedTokens, () -> {
+			try (InputStream upload = fileProcessing.saveWhileReading(request.getInputStream(), file)) {
+				return jobService.translateStreaming(job, upload, languages, combinedRequest);
 			} catch (IOException e) {
-				System.out.println(e.getMessage());
+				throw new UncheckedIOException(e);
 			}
+		});
+		if (job.getStatus() == JobStatus.UPLOADED) {
+			// Refused before anything was read: drop the empty job
+			jobService.cancel(job.getJobId());
+		}
+		return response;
+	}
+
+	private ResponseEntity<?> translateAdmitted(TranslationJob job, List<String> languages, boolean combined) {
+		long estimatedTokens = admissionControl.estimateTokens(job, languages.size(), combined);
+		return runAdmitted(job, estimatedTokens, () -> jobService.translate(job, languages, combined));
+	}
+
+	private ResponseEntity<?> runAdmitted(TranslationJob job, long estimatedTokens,
+			Supplier<Map<String, List<SubtitleEntry>>> translation) {
+		AdmissionDecision decision = admissionControl.acquire(job.getJobId(), estimatedTokens);
+		if (!decision.admitted()) {
+			return rejected(decision);
 		}
-		return ResponseEntity.ok(block);
+		try {
+			return translationResponse(job.getJobId(), translation.get());
+		} catch (TranslationJobService.JobAlreadyStartedException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+					"jobId", job.getJobId(),
+					"status", job.getStatus(),
+					"message", e.getMessage()));
+		} catch (CancellationException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+					"jobId", job.getJobId(),
+					"status", job.getStatus(),
+					"message", e.getMessage()));
+		} catch (TokenUsageService.TokenBudgetExceededException e) {
+			Map<String, Object> body = new LinkedHashMap<>();
+			body.put("message", e.getMessage());
+			body.put("jobId", job.getJobId());
+			tokenUsage.jobUsage(job.getJobId()).ifPresent(usage -> body.put("usage", usage));
+			ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+			if (e.getRetryAfterSeconds() > 0) {
+				response.header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()));
+			}
+			return response.body(body);
+		} finally {
+			admissionControl.release(estimatedTokens);
+		}
+	}
+
+	private ResponseEntity<?> rejected(AdmissionDecision decision) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("message", decision.reason());
+		body.put("retryAfterSeconds", decision.retryAfterSeconds());
+		body.put("estimatedTokens", decision.estimatedTokens());
+		return ResponseEntity.status(decision.status())
+				.header(HttpHeaders.RETRY_AFTER, Long.toString(decision.retryAfterSeconds()))
+				.body(body);
+	}
+
+	private long totalSize(List<MultipartFile> files) {
+		return files.stream().mapToLong(MultipartFile::getSize).sum();
+	}
+
+	// A single language keeps the original response shape: the list of translated entries
+	private ResponseEntity<?> translationResponse(String jobId, Map<String, List<SubtitleEntry>> translated) {
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(JOB_ID_HEADER, jobId);
+		if (translated.size() == 1) {
+			return response.body(translated.values().iterator().next());
+		}
+		return response.body(translated);
+	}
+
+	// Without a jobId the most recent upload is used, as before jobs were addressable
+	private Optional<TranslationJob> resolveJob(String jobId) {
+		return jobId == null ? jobService.latestJob() : jobService.findJob(jobId);
 	}
 
+	private List<MultipartFile> validFiles(MultipartFile[] files) {
+		if (files == null) {
+			return List.of();
+		}
+		return Arrays.stream(files).filter(file -> file != null && !file.isEmpty())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Hands out the next translated file of a job for {@code language}; each file is deleted once
+	 * downloaded, and the job folder is removed when nothing is left to download.
+	 */
 	@PostMapping("/download")
-    public ResponseEntity<?> download() {
+    public ResponseEntity<?> download(@RequestParam(required = false) String jobId,
+    		@RequestParam(defaultValue = DEFAULT_LANGUAGE) String language,
+    		@RequestParam(defaultValue = "0") int fileIndex) {
+        if (distributed) {
+            return downloadAssembled(jobId, language, fileIndex);
+        }
+        List<Path> processFiles = resolveJob(jobId).map(TranslationJob::getFiles).orElse(List.of());
         if (processFiles.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No files available for download.");
         }
 
-        // Use an iterator for safe removal while iterating
-        Iterator<Path> iterator = processFiles.iterator();
-        Path pathToDownload = null;
         Resource resourceToReturn = null;
         String originalFilename = null;
-        
-        while (iterator.hasNext()) {
-            Path currentPath = iterator.next();
+
+        for (Path sourcePath : processFiles) {
+            Path currentPath = TranslationJob.outputFile(sourcePath, language);
             try {
                 Resource resource = new UrlResource(currentPath.toUri());
                 if (resource.exists() && resource.isReadable()) {
-                    pathToDownload = currentPath;
                     originalFilename = resource.getFilename(); // Get filename before any potential deletion
-                    
+
                     // Read file content into memory
-                    byte[] fileContent = Files.readAllBytes(pathToDownload);
+                    byte[] fileContent = Files.readAllBytes(currentPath);
                     resourceToReturn = new ByteArrayResource(fileContent);
-                    
-                    // Now that content is in memory, delete the directory
-                    Path parentFolder = pathToDownload.getParent();
-                    if (parentFolder != null) { // Ensure parent exists
-                    	srtService.deleteDirectoryRecursively(parentFolder);
-                        System.out.println("Deleted directory: " + parentFolder);
-                    } else {
-                        // If no parent, just delete the file (though your logic implies a parent)
-                        Files.deleteIfExists(pathToDownload);
-                         System.out.println("Deleted file: " + pathToDownload);
-                    }
-                    // Remove from the list
-                    iterator.remove(); 
-                    break; // Found a file, prepared it, and marked for removal. Exit loop.
-                } else {
-                    System.out.println("File not found or not readable, removing from list: " + currentPath);
-                    iterator.remove(); // Clean up non-existent/readable files from the list
+
+                    // Now that content is in memory, delete the file and clean up empty folders
+                    Files.deleteIfExists(currentPath);
+                    deleteIfNothingLeft(currentPath.getParent(), sourcePath.getParent());
+                    break; // Found a file and prepared it. Exit loop.
                 }
             } catch (MalformedURLException ex) {
                 System.err.println("Malformed URL for path: " + currentPath + " - " + ex.getMessage());
-                iterator.remove(); // Remove invalid path
             } catch (IOException ex) {
                 System.err.println("IO Error processing path: " + currentPath + " - " + ex.getMessage());
             }
@@ -145,5 +464,79 @@ public class SubtitleController {
         }
     }
 
-    
+	/**
+	 * QA download while a job is still translating: a valid SRT with the contiguous translated prefix
+	 * of one file (batches are committed in cue order, earliest cues first). The
+	 * {@code X-Translation-Progress} header carries the completion percentage of that file. Unlike
+	 * {@code /download} nothing is deleted, so it can be fetched repeatedly.
+	 */
+	@GetMapping("/jobs/{jobId}/partial")
+	public ResponseEntity<?> downloadPartial(@PathVariable String jobId,
+			@RequestParam(defaultValue = DEFAULT_LANGUAGE) String language,
+			@RequestParam(defaultValue = "0") int fileIndex) {
+		String fileName;
+		String srtContent;
+		int translatedEntries;
+		int totalEntries;
+		if (distributed) {
+			Optional<DistributedJobQueueService.PartialFile> partial = distributedQueue.assemblePrefix(jobId, language, fileIndex);
+			if (partial.isEmpty()) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No file " + fileIndex + " in job " + jobId);
+			}
+			fileName = partial.get().fileName();
+			srtContent = partial.get().srtContent();
+			translatedEntries = partial.get().translatedEntries();
+			totalEntries = partial.get().totalEntries();
+		} else {
+			Optional<TranslationJob> job = jobService.findJob(jobId);
+			if (job.isEmpty() || fileIndex < 0 || fileIndex >= job.get().getFiles().size()) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No file " + fileIndex + " in job " + jobId);
+			}
+			Path source = job.get().getFiles().get(fileIndex);
+			// Finished files (also cached or incremental ones) are complete; running ones expose their prefix
+			List<SubtitleEntry> translated = job.get().getTranslatedFiles(language).get(source);
+			List<SubtitleEntry> prefix = translated != null ? translated : job.get().getCommitted(language, source);
+			fileName = source.getFileName().toString();
+			srtContent = srtService.generateSRT(prefix);
+			translatedEntries = prefix.size();
+			totalEntries = job.get().getEntriesByFile().get(source).size();
+		}
+		double progress = totalEntries == 0 ? 100.0 : Math.min(100.0, translatedEntries * 100.0 / totalEntries);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType("application/x-subrip"))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+				.header(PROGRESS_HEADER, String.format(Locale.ROOT, "%.1f", progress))
+				.header(TRANSLATED_ENTRIES_HEADER, translatedEntries + "/" + totalEntries)
+				.body(new ByteArrayResource(srtContent.getBytes(StandardCharsets.UTF_8)));
+	}
+
+    // Assembled from the queue's batch results, so nothing is deleted and any node can serve it
+    private ResponseEntity<?> downloadAssembled(String jobId, String language, int fileIndex) {
+        String id = jobId != null ? jobId : jobService.latestJob().map(TranslationJob::getJobId).orElse(null);
+        Optional<DistributedJobQueueService.AssembledFile> file = id == null ? Optional.empty()
+                : distributedQueue.assemble(id, language, fileIndex);
+        if (file.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("File " + fileIndex + " is not translated to " + language + " yet.");
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-subrip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.get().fileName() + "\"")
+                .body(new ByteArrayResource(file.get().srtContent().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void deleteIfNothingLeft(Path languageFolder, Path jobFolder) throws IOException {
+        try (Stream<Path> remaining = Files.list(languageFolder)) {
+            if (remaining.findAny().isPresent()) {
+                return;
+            }
+        }
+        Files.deleteIfExists(languageFolder);
+        try (Stream<Path> remaining = Files.list(jobFolder)) {
+            // Only the uploaded sources are left: no language folder still has output to download
+            if (remaining.noneMatch(Files::isDirectory)) {
+                srtService.deleteDirectoryRecursively(jobFolder);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,19 @@
+package com.translatesubtitle.khmertranslateAi.dto;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of admission control for an upload or a translation job. A rejected decision carries the
+ * status to answer with (429 for quota/queue pressure, 503 for local resource limits) and an
+ * estimate of when a retry is likely to be accepted.
+ */
+public record AdmissionDecision(boolean admitted, HttpStatus status, long retryAfterSeconds, long estimatedTokens, String reason) {
+
+	public static AdmissionDecision admit(long estimatedTokens) {
+		return new AdmissionDecision(true, HttpStatus.ACCEPTED, 0, estimatedTokens, null);
+	}
+
+	public static AdmissionDecision reject(HttpStatus status, long retryAfterSeconds, long estimatedTokens, String reason) {
+		return new AdmissionDecision(false, status, retryAfterSeconds, estimatedTokens, reason);
+	}
+}
@@ -0,0 +1,23 @@
+package com.translatesubtitle.khmertranslateAi.dto;
+
+import java.util.Map;
+
+/**
+ * State of a submitted batch prediction; {@code responses} and {@code errors} are keyed by the
+ * request keys given at submission.
+ */
+public record BatchPredictionResult(String name, State state, Map<String, GeminiDtos.GeminiResponse> responses,
+		Map<String, String> errors) {
+
+	public enum State {
+		PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED, EXPIRED
+	}
+
+	public static BatchPredictionResult inProgress(String name, State state) {
+		return new BatchPredictionResult(name, state, Map.of(), Map.of());
+	}
+
+	public boolean isDone() {
+		return state != State.PENDING && state != State.RUNNING;
+	}
+}
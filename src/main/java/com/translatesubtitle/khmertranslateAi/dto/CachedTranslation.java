@@ -0,0 +1,20 @@
+package com.translatesubtitle.khmertranslateAi.dto;
+
+import java.util.List;
+
+/**
+ * A finished translation of one subtitle file: the rendered SRT plus the translated entries.
+ */
+public record CachedTranslation(String srtContent, List<SubtitleEntry> entries) {
+
+	// Rough heap footprint used for size-bounded eviction (Java strings are UTF-16)
+	public long estimatedBytes() {
+		long bytes = (long) srtContent.length() * 2;
+		for (SubtitleEntry entry : entries) {
+			bytes += 64;
+			bytes += entry.getText() == null ? 0 : (long) entry.getText().length() * 2;
+			bytes += entry.getTranslatedText() == null ? 0 : (long) entry.getTranslatedText().length() * 2;
+		}
+		return bytes;
+	}
+}
@@ -1,6 +1,9 @@
 package com.translatesubtitle.khmertranslateAi.dto;
 
 import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 // Using record for immutable DTOs (Java 14+)
 // If using older Java, create regular classes with getters/setters.
@@ -10,12 +13,42 @@ public class GeminiDtos {
     // Request Payload DTOs
     public record TextPart(String text) {}
     public record Content(String role, List<TextPart> parts) {}
-    public record GeminiRequest(List<Content> contents) {}
+    // systemInstruction and cachedContent are mutually exclusive; null fields are left out of the payload
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record GeminiRequest(List<Content> contents, Content systemInstruction, String cachedContent,
+            GenerationConfig generationConfig) {
+        public GeminiRequest(List<Content> contents) {
+            this(contents, null, null, null);
+        }
+
+        public GeminiRequest(List<Content> contents, Content systemInstruction, String cachedContent) {
+            this(contents, systemInstruction, cachedContent, null);
+        }
+    }
+    // Structured output: responseSchema follows the OpenAPI subset accepted by Gemini
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record GenerationConfig(String responseMimeType, Map<String, Object> responseSchema) {}
+
+    // cachedContents API DTOs
+    public record CachedContentRequest(String model, Content systemInstruction, String ttl) {}
+    public record CachedContentResponse(String name, String model, String expireTime) {}
 
     // Response Payload DTOs
     public record Candidate(Content content, String finishReason, int index, List<SafetyRating> safetyRatings) {}
     public record SafetyRating(String category, String probability) {}
-    public record GeminiResponse(List<Candidate> candidates, PromptFeedback promptFeedback) {}
+    public record GeminiResponse(List<Candidate> candidates, PromptFeedback promptFeedback, UsageMetadata usageMetadata) {}
     public record PromptFeedback(List<SafetyRating> safetyRatings) {}
+    // Token counts billed for one generateContent call; any of them may be absent
+    public record UsageMetadata(Integer promptTokenCount, Integer candidatesTokenCount, Integer cachedContentTokenCount,
+            Integer thoughtsTokenCount, Integer totalTokenCount) {
+        // The billed total; without totalTokenCount, prompt + output + thinking, which is billed as output
+        public long totalTokens() {
+            if (totalTokenCount != null) {
+                return totalTokenCount;
+            }
+            return (promptTokenCount == null ? 0 : promptTokenCount) + (candidatesTokenCount == null ? 0 : candidatesTokenCount)
+                    + (thoughtsTokenCount == null ? 0 : thoughtsTokenCount);
+        }
+    }
 
 }
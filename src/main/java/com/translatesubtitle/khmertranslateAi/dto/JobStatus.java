@@ -0,0 +1,9 @@
+package com.translatesubtitle.khmertranslateAi.dto;
+
+public enum JobStatus {
+	UPLOADED,
+	RUNNING,
+	COMPLETED,
+	FAILED,
+	CANCELLED
+}
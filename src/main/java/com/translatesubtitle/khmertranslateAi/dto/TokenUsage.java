@@ -0,0 +1,55 @@
+package com.translatesubtitle.khmertranslateAi.dto;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running token totals reported by Gemini's {@code usageMetadata}, for a batch, file, job or key.
+ */
+public class TokenUsage {
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder promptTokens = new LongAdder();
+	private final LongAdder outputTokens = new LongAdder();
+	private final LongAdder cachedTokens = new LongAdder();
+	private final LongAdder thoughtsTokens = new LongAdder();
+	private final LongAdder totalTokens = new LongAdder();
+
+	public void add(GeminiDtos.UsageMetadata usage) {
+		requests.increment();
+		if (usage == null) {
+			return;
+		}
+		promptTokens.add(valueOf(usage.promptTokenCount()));
+		outputTokens.add(valueOf(usage.candidatesTokenCount()));
+		cachedTokens.add(valueOf(usage.cachedContentTokenCount()));
+		thoughtsTokens.add(valueOf(usage.thoughtsTokenCount()));
+		totalTokens.add(usage.totalTokens());
+	}
+
+	public long getRequests() {
+		return requests.sum();
+	}
+
+	public long getPromptTokens() {
+		return promptTokens.sum();
+	}
+
+	public long getOutputTokens() {
+		return outputTokens.sum();
+	}
+
+	public long getCachedTokens() {
+		return cachedTokens.sum();
+	}
+
+	public long getThoughtsTokens() {
+		return thoughtsTokens.sum();
+	}
+
+	public long getTotalTokens() {
+		return totalTokens.sum();
+	}
+
+	private static long valueOf(Integer count) {
+		return count == null ? 0 : count;
+	}
+}
@@ -0,0 +1,120 @@
+package com.translatesubtitle.khmertranslateAi.dto;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * One upload: the stored files, their parsed entries and, once translated, the translated entries
+ * per target language. Finished jobs are kept in memory so a revised file can be re-translated
+ * incrementally against them.
+ */
+@Getter
+public class TranslationJob {
+	private final String jobId;
+	private final Instant createdAt = Instant.now();
+	private final List<Path> files;
+	private final Map<Path, List<SubtitleEntry>> entriesByFile;
+	// language -> source file -> translated entries
+	private final Map<String, Map<Path, List<SubtitleEntry>>> translations = new ConcurrentHashMap<>();
+	// language -> source file -> entries written so far, in cue order: the translated prefix of a running file
+	@Getter(AccessLevel.NONE)
+	private final Map<String, Map<Path, List<SubtitleEntry>>> committed = new ConcurrentHashMap<>();
+	private volatile JobStatus status = JobStatus.UPLOADED;
+	// language -> (source text -> translation) from a previous version; only changed or new lines are sent to Gemini
+	@Setter
+	private volatile Map<String, Map<String, String>> previousTranslations = Collections.emptyMap();
+	@Getter(AccessLevel.NONE)
+	private final Sinks.One<Boolean> cancellation = Sinks.one();
+	private volatile boolean cancelled;
+
+	public TranslationJob(String jobId, List<Path> files, Map<Path, List<SubtitleEntry>> entriesByFile) {
+		this.jobId = jobId;
+		this.files = List.copyOf(files);
+		this.entriesByFile = entriesByFile;
+	}
+
+	public synchronized void setStatus(JobStatus status) {
+		this.status = status;
+	}
+
+	/**
+	 * Moves the job from {@code expected} to {@code next}; false, and unchanged, when it is no longer in
+	 * {@code expected}. Starting a job this way lets only one of several concurrent starts run it.
+	 */
+	public synchronized boolean compareAndSetStatus(JobStatus expected, JobStatus next) {
+		if (status != expected) {
+			return false;
+		}
+		status = next;
+		return true;
+	}
+
+	public int getTotalEntries() {
+		return entriesByFile.values().stream().mapToInt(List::size).sum();
+	}
+
+	/**
+	 * Signals the running translation to stop; its pipelines end at the next signal of
+	 * {@link #cancelled()}, which also cancels in-flight Gemini requests.
+	 */
+	public void cancel() {
+		cancelled = true;
+		cancellation.tryEmitValue(Boolean.TRUE);
+	}
+
+	// Emits once the job is cancelled; late subscribers still see the signal
+	public Mono<Boolean> cancelled() {
+		return cancellation.asMono();
+	}
+
+	// For writers: creates the language's map on first use
+	public Map<Path, List<SubtitleEntry>> getTranslatedByFile(String language) {
+		return translations.computeIfAbsent(language, key -> new ConcurrentHashMap<>());
+	}
+
+	// For readers: a read-only view, empty for a language that has nothing translated yet
+	public Map<Path, List<SubtitleEntry>> getTranslatedFiles(String language) {
+		return Collections.unmodifiableMap(translations.getOrDefault(language, Map.of()));
+	}
+
+	/**
+	 * Starts recording the translated prefix of {@code sourceFile} in {@code language}; the returned
+	 * list is appended to as batches are written.
+	 */
+	public List<SubtitleEntry> startCommitted(String language, Path sourceFile) {
+		List<SubtitleEntry> prefix = Collections.synchronizedList(new ArrayList<>());
+		committed.computeIfAbsent(language, key -> new ConcurrentHashMap<>()).put(sourceFile, prefix);
+		return prefix;
+	}
+
+	// Snapshot of the translated prefix; empty when that file and language have not started
+	public List<SubtitleEntry> getCommitted(String language, Path sourceFile) {
+		List<SubtitleEntry> prefix = committed.getOrDefault(language, Map.of()).get(sourceFile);
+		if (prefix == null) {
+			return List.of();
+		}
+		synchronized (prefix) {
+			return List.copyOf(prefix);
+		}
+	}
+
+	/**
+	 * Where the translation of {@code sourceFile} into {@code language} is written: a per-language
+	 * folder next to the uploaded file, keeping the original file name.
+	 */
+	public static Path outputFile(Path sourceFile, String language) {
+		return sourceFile.resolveSibling(language.trim().toLowerCase(Locale.ROOT)).resolve(sourceFile.getFileName());
+	}
+}
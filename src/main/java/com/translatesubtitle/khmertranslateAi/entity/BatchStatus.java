@@ -0,0 +1,9 @@
+package com.translatesubtitle.khmertranslateAi.entity;
+
+public enum BatchStatus {
+	PENDING,
+	CLAIMED,
+	DONE,
+	FAILED,
+	CANCELLED
+}
@@ -0,0 +1,81 @@
+package com.translatesubtitle.khmertranslateAi.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One batch of one file in one target language: the unit of work claimed by worker nodes.
+ * A claimed batch is leased to a node until {@code leaseExpiresAt}; the owner extends the lease
+ * with heartbeats, and an expired lease makes the batch claimable again.
+ */
+@Entity
+@Table(name = "translation_batch")
+@Getter
+@Setter
+public class TranslationBatchRecord {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "job_id", nullable = false, length = 64)
+	private String jobId;
+
+	@Column(name = "file_index", nullable = false)
+	private int fileIndex;
+
+	@Column(nullable = false, length = 64)
+	private String language;
+
+	@Column(name = "batch_index", nullable = false)
+	private int batchIndex;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private BatchStatus status;
+
+	// JSON array of SubtitleEntry to translate
+	@Column(name = "source_json", nullable = false, columnDefinition = "text")
+	private String sourceJson;
+
+	// JSON array of translated SubtitleEntry
+	@Column(name = "result_json", columnDefinition = "text")
+	private String resultJson;
+
+	@Column(nullable = false)
+	private int attempts;
+
+	// Gemini usageMetadata summed over the requests of the successful attempt
+	@Column(name = "prompt_tokens", nullable = false)
+	private long promptTokens;
+
+	@Column(name = "output_tokens", nullable = false)
+	private long outputTokens;
+
+	@Column(name = "total_tokens", nullable = false)
+	private long totalTokens;
+
+	@Column(name = "lease_owner", length = 128)
+	private String leaseOwner;
+
+	@Column(name = "lease_expires_at")
+	private Instant leaseExpiresAt;
+
+	@Column(name = "last_error", columnDefinition = "text")
+	private String lastError;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	@Column(name = "updated_at", nullable = false)
+	private Instant updatedAt;
+}
@@ -0,0 +1,36 @@
+package com.translatesubtitle.khmertranslateAi.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A parsed uploaded file, so that any node can start, translate and serve the job.
+ */
+@Entity
+@Table(name = "translation_job_file")
+@Getter
+@Setter
+public class TranslationFileRecord {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "job_id", nullable = false, length = 64)
+	private String jobId;
+
+	@Column(name = "file_index", nullable = false)
+	private int fileIndex;
+
+	@Column(name = "file_name", nullable = false, length = 512)
+	private String fileName;
+
+	// JSON array of SubtitleEntry
+	@Column(name = "entries_json", nullable = false, columnDefinition = "text")
+	private String entriesJson;
+}
@@ -0,0 +1,44 @@
+package com.translatesubtitle.khmertranslateAi.entity;
+
+import java.time.Instant;
+
+import com.translatesubtitle.khmertranslateAi.dto.JobStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A job shared by all nodes of the distributed queue.
+ */
+@Entity
+@Table(name = "translation_job")
+@Getter
+@Setter
+public class TranslationJobRecord {
+	@Id
+	@Column(name = "job_id", length = 64)
+	private String jobId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private JobStatus status;
+
+	// Comma separated target languages, set when the job is started
+	@Column(length = 512)
+	private String languages;
+
+	@Column(name = "total_batches", nullable = false)
+	private int totalBatches;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	@Column(name = "updated_at", nullable = false)
+	private Instant updatedAt;
+}
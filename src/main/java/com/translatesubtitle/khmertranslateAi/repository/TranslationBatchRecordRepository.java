@@ -0,0 +1,104 @@
+package com.translatesubtitle.khmertranslateAi.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.translatesubtitle.khmertranslateAi.entity.BatchStatus;
+import com.translatesubtitle.khmertranslateAi.entity.TranslationBatchRecord;
+
+public interface TranslationBatchRecordRepository extends JpaRepository<TranslationBatchRecord, Long> {
+
+	/**
+	 * Locks up to {@code limit} claimable batches: pending ones and claimed ones whose lease ran out
+	 * with attempts left (a batch that keeps killing its worker is failed by {@link #failExpiredLeases}).
+	 * Rows locked by another node's claim are skipped rather than waited for, so concurrent workers
+	 * never block each other or claim the same batch. Jobs are served first come, first served; within
+	 * a job the lowest batch index goes first across all files and languages, so every file's opening
+	 * minutes are translated before its later cues. Must run inside a transaction.
+	 */
+	@Query(value = "SELECT * FROM translation_batch "
+			+ "WHERE status = 'PENDING' OR (status = 'CLAIMED' AND lease_expires_at < :now AND attempts < :maxAttempts) "
+			+ "ORDER BY created_at, batch_index, id "
+			+ "LIMIT :limit "
+			+ "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+	List<TranslationBatchRecord> lockClaimable(@Param("now") Instant now, @Param("limit") int limit,
+			@Param("maxAttempts") int maxAttempts);
+
+	@Query("SELECT DISTINCT b.jobId FROM TranslationBatchRecord b "
+			+ "WHERE b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.CLAIMED "
+			+ "AND b.leaseExpiresAt < :now AND b.attempts >= :maxAttempts")
+	List<String> findJobsWithExpiredLeases(@Param("now") Instant now, @Param("maxAttempts") int maxAttempts);
+
+	// Lease ran out on the last attempt: the node died with it and nobody calls fail() for it
+	@Modifying
+	@Query("UPDATE TranslationBatchRecord b SET b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.FAILED, "
+			+ "b.lastError = :error, b.leaseOwner = null, b.leaseExpiresAt = null, b.updatedAt = :now "
+			+ "WHERE b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.CLAIMED "
+			+ "AND b.leaseExpiresAt < :now AND b.attempts >= :maxAttempts")
+	int failExpiredLeases(@Param("now") Instant now, @Param("maxAttempts") int maxAttempts, @Param("error") String error);
+
+	@Modifying
+	@Query("UPDATE TranslationBatchRecord b SET b.leaseExpiresAt = :until, b.updatedAt = :now "
+			+ "WHERE b.id IN :ids AND b.leaseOwner = :owner "
+			+ "AND b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.CLAIMED")
+	int extendLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+			@Param("until") Instant until, @Param("now") Instant now);
+
+	@Query("SELECT b.id FROM TranslationBatchRecord b WHERE b.id IN :ids AND b.leaseOwner = :owner "
+			+ "AND b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.CLAIMED")
+	List<Long> findHeldIds(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+	@Modifying
+	@Query("UPDATE TranslationBatchRecord b SET b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.CANCELLED, "
+			+ "b.leaseOwner = null, b.leaseExpiresAt = null, b.updatedAt = :now "
+			+ "WHERE b.jobId = :jobId AND b.status IN (com.translatesubtitle.khmertranslateAi.entity.BatchStatus.PENDING, "
+			+ "com.translatesubtitle.khmertranslateAi.entity.BatchStatus.CLAIMED)")
+	int cancelOpen(@Param("jobId") String jobId, @Param("now") Instant now);
+
+	// Only the current lease owner may complete a batch; a node whose lease expired loses its result
+	@Modifying
+	@Query("UPDATE TranslationBatchRecord b SET b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.DONE, "
+			+ "b.resultJson = :result, b.promptTokens = :promptTokens, b.outputTokens = :outputTokens, "
+			+ "b.totalTokens = :totalTokens, b.leaseOwner = null, b.leaseExpiresAt = null, b.lastError = null, b.updatedAt = :now "
+			+ "WHERE b.id = :id AND b.leaseOwner = :owner "
+			+ "AND b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.CLAIMED")
+	int complete(@Param("id") Long id, @Param("owner") String owner, @Param("result") String resultJson,
+			@Param("promptTokens") long promptTokens, @Param("outputTokens") long outputTokens,
+			@Param("totalTokens") long totalTokens, @Param("now") Instant now);
+
+	@Modifying
+	@Query("UPDATE TranslationBatchRecord b SET b.status = :status, b.lastError = :error, "
+			+ "b.leaseOwner = null, b.leaseExpiresAt = null, b.updatedAt = :now "
+			+ "WHERE b.id = :id AND b.leaseOwner = :owner "
+			+ "AND b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.CLAIMED")
+	int release(@Param("id") Long id, @Param("owner") String owner, @Param("status") BatchStatus status,
+			@Param("error") String error, @Param("now") Instant now);
+
+	// Hands a batch back without counting the attempt its claim took
+	@Modifying
+	@Query("UPDATE TranslationBatchRecord b SET b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.PENDING, "
+			+ "b.attempts = b.attempts - 1, b.lastError = :error, b.leaseOwner = null, b.leaseExpiresAt = null, b.updatedAt = :now "
+			+ "WHERE b.id = :id AND b.leaseOwner = :owner "
+			+ "AND b.status = com.translatesubtitle.khmertranslateAi.entity.BatchStatus.CLAIMED")
+	int pause(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error, @Param("now") Instant now);
+
+	long countByJobIdAndStatus(String jobId, BatchStatus status);
+
+	long countByJobId(String jobId);
+
+	// [prompt, output, total] token sums of a job's finished batches
+	@Query("SELECT COALESCE(SUM(b.promptTokens), 0), COALESCE(SUM(b.outputTokens), 0), COALESCE(SUM(b.totalTokens), 0) "
+			+ "FROM TranslationBatchRecord b WHERE b.jobId = :jobId")
+	List<Object[]> sumTokensByJobId(@Param("jobId") String jobId);
+
+	@Query("SELECT COALESCE(SUM(b.totalTokens), 0) FROM TranslationBatchRecord b WHERE b.jobId = :jobId")
+	long sumTotalTokensByJobId(@Param("jobId") String jobId);
+
+	List<TranslationBatchRecord> findByJobIdAndLanguageAndFileIndexOrderByBatchIndex(String jobId, String language, int fileIndex);
+}
@@ -0,0 +1,15 @@
+package com.translatesubtitle.khmertranslateAi.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.translatesubtitle.khmertranslateAi.entity.TranslationFileRecord;
+
+public interface TranslationFileRecordRepository extends JpaRepository<TranslationFileRecord, Long> {
+
+	List<TranslationFileRecord> findByJobIdOrderByFileIndex(String jobId);
+
+	Optional<TranslationFileRecord> findByJobIdAndFileIndex(String jobId, int fileIndex);
+}
@@ -0,0 +1,31 @@
+package com.translatesubtitle.khmertranslateAi.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.translatesubtitle.khmertranslateAi.dto.JobStatus;
+import com.translatesubtitle.khmertranslateAi.entity.TranslationJobRecord;
+
+public interface TranslationJobRecordRepository extends JpaRepository<TranslationJobRecord, String> {
+
+	@Modifying
+	@Query("UPDATE TranslationJobRecord j SET j.status = :status, j.updatedAt = :now "
+			+ "WHERE j.jobId = :jobId AND j.status = com.translatesubtitle.khmertranslateAi.dto.JobStatus.RUNNING")
+	int finishRunning(@Param("jobId") String jobId, @Param("status") JobStatus status, @Param("now") Instant now);
+
+	// Only one caller can start an uploaded job; repeats and finished jobs update nothing
+	@Modifying
+	@Query("UPDATE TranslationJobRecord j SET j.status = com.translatesubtitle.khmertranslateAi.dto.JobStatus.RUNNING, j.updatedAt = :now "
+			+ "WHERE j.jobId = :jobId AND j.status = com.translatesubtitle.khmertranslateAi.dto.JobStatus.UPLOADED")
+	int startUploaded(@Param("jobId") String jobId, @Param("now") Instant now);
+
+	@Modifying
+	@Query("UPDATE TranslationJobRecord j SET j.status = com.translatesubtitle.khmertranslateAi.dto.JobStatus.CANCELLED, j.updatedAt = :now "
+			+ "WHERE j.jobId = :jobId AND j.status IN (com.translatesubtitle.khmertranslateAi.dto.JobStatus.UPLOADED, "
+			+ "com.translatesubtitle.khmertranslateAi.dto.JobStatus.RUNNING)")
+	int cancel(@Param("jobId") String jobId, @Param("now") Instant now);
+}
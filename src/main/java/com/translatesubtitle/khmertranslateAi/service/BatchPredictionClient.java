@@ -0,0 +1,24 @@
+package com.translatesubtitle.khmertranslateAi.service;
+
+import java.util.Map;
+
+import com.translatesubtitle.khmertranslateAi.dto.BatchPredictionResult;
+import com.translatesubtitle.khmertranslateAi.dto.GeminiDtos;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Asynchronous batch prediction: many generateContent requests submitted at once and answered
+ * later, outside the interactive rate limits. Requests and responses are matched by key.
+ */
+public interface BatchPredictionClient {
+	/**
+	 * Submits {@code requests} (key -> request) as one batch and returns the batch's name.
+	 */
+	Mono<String> submit(String displayName, Map<String, GeminiDtos.GeminiRequest> requests);
+
+	/**
+	 * Current state of a batch; the responses are filled in once it is done.
+	 */
+	Mono<BatchPredictionResult> poll(String batchName);
+}
@@ -1,9 +1,13 @@
 package com.translatesubtitle.khmertranslateAi.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.List;
 
 import org.springframework.web.multipart.MultipartFile;
 public interface FileProcessingService {
 	List<Path> processFiles(List<MultipartFile> files);
+	Path newJobFile(String originalFilename) throws IOException;
+	InputStream saveWhileReading(InputStream in, Path target) throws IOException;
 }
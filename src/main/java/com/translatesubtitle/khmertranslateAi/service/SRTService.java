@@ -10,6 +10,7 @@ public interface SRTService {
 	String generateSRT(List<SubtitleEntry> subtitleEntries);
 	void saveSRTToFile(String srtContent, String filePath) throws IOException;
 	void generateAndSaveSRT(List<SubtitleEntry> subtitleEntries, String filePath) throws IOException;
+	SRTWriter openSRTWriter(String filePath) throws IOException;
 	boolean isValidSRTTimeFormat(String time);
 	boolean isValidSRTEntry(SubtitleEntry entry);
 	String generateSRTWithValidation(List<SubtitleEntry> subtitleEntries) throws IllegalArgumentException;
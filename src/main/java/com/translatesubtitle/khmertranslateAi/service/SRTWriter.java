@@ -0,0 +1,14 @@
+package com.translatesubtitle.khmertranslateAi.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+/**
+ * Appends translated entries to an SRT file as they become available.
+ */
+public interface SRTWriter extends Closeable {
+	void write(List<SubtitleEntry> subtitleEntries) throws IOException;
+}
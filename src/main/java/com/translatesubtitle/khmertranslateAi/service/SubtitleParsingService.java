@@ -1,10 +1,14 @@
 package com.translatesubtitle.khmertranslateAi.service;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.List;
 
 import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
 
+import reactor.core.publisher.Flux;
+
 public interface SubtitleParsingService {
 	List<SubtitleEntry> entries(List<Path> path);
+	Flux<SubtitleEntry> streamEntries(InputStream in);
 }
@@ -0,0 +1,13 @@
+package com.translatesubtitle.khmertranslateAi.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.translatesubtitle.khmertranslateAi.dto.CachedTranslation;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+public interface TranslationCacheService {
+	String cacheKey(List<SubtitleEntry> entries, String targetLanguage);
+	Optional<CachedTranslation> get(String cacheKey);
+	void put(String cacheKey, CachedTranslation translation);
+}
@@ -0,0 +1,29 @@
+package com.translatesubtitle.khmertranslateAi.service;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.dto.TranslationJob;
+
+public interface TranslationJobService {
+	TranslationJob createJob(List<Path> files);
+	TranslationJob createStreamingJob(Path file);
+	Optional<TranslationJob> findJob(String jobId);
+	Optional<TranslationJob> latestJob();
+	Map<String, List<SubtitleEntry>> translate(TranslationJob job, List<String> targetLanguages, boolean combined);
+	Map<String, List<SubtitleEntry>> translateStreaming(TranslationJob job, InputStream upload, List<String> targetLanguages, boolean combined);
+	boolean cancel(String jobId);
+
+	/**
+	 * Thrown when a job is started that was already started, finished or cancelled.
+	 */
+	class JobAlreadyStartedException extends RuntimeException {
+		public JobAlreadyStartedException(String jobId) {
+			super("Job " + jobId + " was already started");
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.translatesubtitle.khmertranslateAi.dto.AdmissionDecision;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.dto.TranslationJob;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounds how much work this node accepts.
+ * <p>
+ * Uploads are refused with 503 when parsing them could push the heap below
+ * {@code translation.admission.min-free-heap-mb}. Before a job is translated its token demand is
+ * estimated from the parsed entries and checked against the daily token budget of
+ * {@link TokenUsageService} ({@code translation.budget.tokens-per-day}), the tokens already
+ * reserved by admitted jobs and the job queue: over-quota work gets 429, a full running/queue set
+ * gets 429 at once or 503 after {@code queue-timeout-ms}, which is kept short because a waiting job
+ * holds its request thread. Every rejection carries an estimated wait
+ * derived from {@code tokens-per-minute}, so bursts degrade into predictable retries instead of
+ * every job timing out at once.
+ */
+@Service
+public class AdmissionControlService {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlService.class);
+
+    private final GeminiApiConfig geminiApiConfig;
+    private final TokenUsageService tokenUsage;
+
+    @Value("${translation.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${translation.admission.tokens-per-minute:1000000}")
+    private long tokensPerMinute;
+
+    @Value("${translation.admission.max-pending-tokens:5000000}")
+    private long maxPendingTokens;
+
+    @Value("${translation.admission.max-queued-jobs:10}")
+    private int maxQueuedJobs;
+
+    @Value("${translation.admission.queue-timeout-ms:1000}")
+    private long queueTimeoutMs;
+
+    @Value("${translation.admission.min-free-heap-mb:128}")
+    private long minFreeHeapMb;
+
+    // Parsed entries (UTF-16 strings plus objects) take several times the raw upload size
+    @Value("${translation.admission.heap-bytes-per-upload-byte:8}")
+    private long heapBytesPerUploadByte;
+
+    @Value("${translation.admission.chars-per-token:4}")
+    private double charsPerToken;
+
+    // Khmer/Thai/Lao script tokenizes into noticeably more tokens than the English source
+    @Value("${translation.admission.output-tokens-per-input-token:2.5}")
+    private double outputTokensPerInputToken;
+
+    @Value("${translation.admission.prompt-overhead-tokens-per-batch:300}")
+    private long promptOverheadTokensPerBatch;
+
+    private final Semaphore runningSlots;
+    private final AtomicInteger queuedJobs = new AtomicInteger();
+    private final AtomicLong pendingTokens = new AtomicLong();
+
+    public AdmissionControlService(GeminiApiConfig geminiApiConfig, TokenUsageService tokenUsage, MeterRegistry meterRegistry,
+            @Value("${translation.admission.max-running-jobs:2}") int maxRunningJobs) {
+        this.geminiApiConfig = geminiApiConfig;
+        this.tokenUsage = tokenUsage;
+        this.runningSlots = new Semaphore(maxRunningJobs, true);
+
+        Gauge.builder("translation.admission.pending.tokens", pendingTokens, AtomicLong::get)
+                .description("Estimated tokens reserved by admitted, unfinished jobs").register(meterRegistry);
+        Gauge.builder("translation.admission.queued.jobs", queuedJobs, AtomicInteger::get)
+                .description("Jobs waiting for a running slot").register(meterRegistry);
+        Gauge.builder("translation.admission.running.jobs", runningSlots, slots -> maxRunningJobs - slots.availablePermits())
+                .description("Jobs currently translating").register(meterRegistry);
+    }
+
+    /**
+     * Checked before an upload is stored and parsed into heap.
+     */
+    public AdmissionDecision checkUpload(long uploadBytes) {
+        if (!enabled) {
+            return AdmissionDecision.admit(0);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        long freeHeap = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        long needed = uploadBytes * heapBytesPerUploadByte;
+        if (freeHeap - needed < minFreeHeapMb * 1024 * 1024) {
+            logger.warn("Rejecting upload of {} bytes: {} MB heap free, {} MB needed", uploadBytes,
+                    freeHeap / (1024 * 1024), needed / (1024 * 1024));
+            return AdmissionDecision.reject(HttpStatus.SERVICE_UNAVAILABLE, estimateWaitSeconds(pendingTokens.get()), 0,
+                    "Not enough memory to accept this upload right now.");
+        }
+        return AdmissionDecision.admit(0);
+    }
+
+    public long estimateTokens(TranslationJob job, int languages, boolean combined) {
+        long inputChars = 0;
+        long batches = 0;
+        int batchSize = Math.max(1, geminiApiConfig.getBatchSize());
+        for (List<SubtitleEntry> entries : job.getEntriesByFile().values()) {
+            for (SubtitleEntry entry : entries) {
+                inputChars += entry.getText() == null ? 0 : entry.getText().length();
+            }
+            batches += (entries.size() + batchSize - 1) / batchSize;
+        }
+        return estimateTokens(inputChars, batches, languages, combined);
+    }
+
+    /**
+     * Estimate for an upload that is translated while it streams in, before any entry is parsed:
+     * about half of an SRT file is cue numbers and timestamps, and a cue takes about 60 bytes.
+     */
+    public long estimateTokens(long uploadBytes, int languages, boolean combined) {
+        int batchSize = Math.max(1, geminiApiConfig.getBatchSize());
+        long batches = Math.max(1, (uploadBytes / 60 + batchSize - 1) / batchSize);
+        return estimateTokens(uploadBytes / 2, batches, languages, combined);
+    }
+
+    private long estimateTokens(long inputChars, long batches, int languages, boolean combined) {
+        long inputTokens = (long) Math.ceil(inputChars / charsPerToken);
+        long promptPasses = combined ? 1 : languages;
+        long outputTokens = (long) Math.ceil(inputTokens * outputTokensPerInputToken) * languages;
+        return promptPasses * (inputTokens + batches * promptOverheadTokensPerBatch) + outputTokens;
+    }
+
+    /**
+     * Admits a job with the given token demand, waiting up to the (short) queue timeout for a running slot.
+     * An admitted job must be {@link #release(long) released} when it finishes.
+     */
+    public AdmissionDecision acquire(String jobId, long estimatedTokens) {
+        if (!enabled) {
+            return AdmissionDecision.admit(estimatedTokens);
+        }
+
+        // The tokens Gemini actually reported today; one budget for admission and for the requests themselves
+        if (tokenUsage.isDailyBudgetExhausted()) {
+            return reject(jobId, HttpStatus.TOO_MANY_REQUESTS, tokenUsage.secondsUntilMidnight(), estimatedTokens,
+                    "Daily token budget exhausted.");
+        }
+        long reserved = pendingTokens.get();
+        if (reserved > 0 && reserved + estimatedTokens > maxPendingTokens) {
+            return reject(jobId, HttpStatus.TOO_MANY_REQUESTS, estimateWaitSeconds(reserved + estimatedTokens - maxPendingTokens),
+                    estimatedTokens, "Too much translation work pending.");
+        }
+        // Take the queue place first, so concurrent requests cannot all pass a check of the old count
+        if (queuedJobs.incrementAndGet() > maxQueuedJobs) {
+            queuedJobs.decrementAndGet();
+            return reject(jobId, HttpStatus.TOO_MANY_REQUESTS, estimateWaitSeconds(reserved), estimatedTokens,
+                    "Translation queue is full.");
+        }
+
+        boolean acquired;
+        try {
+            acquired = runningSlots.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            queuedJobs.decrementAndGet();
+        }
+        if (!acquired) {
+            return reject(jobId, HttpStatus.SERVICE_UNAVAILABLE, estimateWaitSeconds(pendingTokens.get()), estimatedTokens,
+                    "All translation slots are busy.");
+        }
+
+        pendingTokens.addAndGet(estimatedTokens);
+        logger.info("Admitted job {} with an estimated {} tokens ({} tokens pending)", jobId, estimatedTokens, pendingTokens.get());
+        return AdmissionDecision.admit(estimatedTokens);
+    }
+
+    public void release(long estimatedTokens) {
+        if (!enabled) {
+            return;
+        }
+        pendingTokens.addAndGet(-estimatedTokens);
+        runningSlots.release();
+    }
+
+    private long estimateWaitSeconds(long tokensAhead) {
+        if (tokensPerMinute <= 0) {
+            return 60;
+        }
+        return Math.max(1, (long) Math.ceil(tokensAhead * 60.0 / tokensPerMinute));
+    }
+
+    private AdmissionDecision reject(String jobId, HttpStatus status, long retryAfterSeconds, long estimatedTokens, String reason) {
+        logger.warn("Rejecting job {} ({} estimated tokens): {} Retry after {}s", jobId, estimatedTokens, reason, retryAfterSeconds);
+        return AdmissionDecision.reject(status, retryAfterSeconds, estimatedTokens, reason);
+    }
+}
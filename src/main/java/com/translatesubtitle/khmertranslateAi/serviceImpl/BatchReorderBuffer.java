@@ -0,0 +1,62 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sequencing stage between concurrent batch requests and the SRT writers: up to {@code concurrency}
+ * batches are translated at once, but results are emitted strictly in input order. A batch that
+ * finishes before an earlier one waits in the reorder buffer; while the oldest batch is still in
+ * flight no new batch is started beyond the concurrency window, so the buffer never holds more than
+ * {@code concurrency - 1} batches, however long the file.
+ * <p>
+ * {@code translation.reorder.buffered} is the number of finished batches waiting for an earlier one
+ * across all pipelines; {@code translation.reorder.occupancy} records the buffer size of a pipeline
+ * each time a batch finishes. A high occupancy means one slow batch (usually a retry) is holding up
+ * the others.
+ */
+@Component
+public class BatchReorderBuffer {
+
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final DistributionSummary occupancy;
+
+    public BatchReorderBuffer(MeterRegistry meterRegistry) {
+        Gauge.builder("translation.reorder.buffered", buffered, AtomicInteger::get)
+                .description("Translated batches waiting for an earlier batch before they can be written")
+                .register(meterRegistry);
+        this.occupancy = DistributionSummary.builder("translation.reorder.occupancy")
+                .description("Reorder buffer size of a pipeline when one of its batches finishes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies {@code translate} to up to {@code concurrency} batches at a time and emits the results
+     * in the order of {@code batches}.
+     */
+    public <T, R> Flux<R> inOrder(Flux<T> batches, Function<T, Mono<R>> translate, int concurrency) {
+        return Flux.defer(() -> {
+            // Finished but not yet emitted, for this pipeline only
+            AtomicInteger waiting = new AtomicInteger();
+            return batches
+                    .flatMapSequential(batch -> translate.apply(batch).doOnNext(done -> {
+                        occupancy.record(waiting.incrementAndGet());
+                        buffered.incrementAndGet();
+                    }), Math.max(1, concurrency), 1)
+                    .doOnNext(emitted -> {
+                        waiting.decrementAndGet();
+                        buffered.decrementAndGet();
+                    })
+                    // Results still buffered when the pipeline is cancelled or fails are dropped
+                    .doFinally(signal -> buffered.addAndGet(-waiting.getAndSet(0)));
+        });
+    }
+}
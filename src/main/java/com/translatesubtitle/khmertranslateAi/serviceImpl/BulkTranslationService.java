@@ -0,0 +1,319 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.translatesubtitle.khmertranslateAi.dto.BatchPredictionResult;
+import com.translatesubtitle.khmertranslateAi.dto.GeminiDtos;
+import com.translatesubtitle.khmertranslateAi.dto.JobStatus;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.dto.TranslationJob;
+import com.translatesubtitle.khmertranslateAi.service.BatchPredictionClient;
+import com.translatesubtitle.khmertranslateAi.service.SRTService;
+import com.translatesubtitle.khmertranslateAi.service.TranslationJobService.JobAlreadyStartedException;
+
+/**
+ * Offline bulk mode for back-catalogue work that does not need interactive latency. Every batch
+ * request of one or more uploaded jobs is submitted through {@link BatchPredictionClient} as one
+ * asynchronous submission (split into {@code translation.bulk.max-requests-per-submission}),
+ * outside the interactive rate limits and admission control. Submissions are polled every
+ * {@code translation.bulk.poll-interval-ms}; once all of them are done the responses are mapped back
+ * to the jobs' entries by key, verified like interactive translations (lines that fail, including
+ * batches without a usable response, are re-translated online in micro-batches) and written. A job
+ * that still has lines with a failure marker, whose output could not be written, or with batches in
+ * a submission that failed, expired or was cancelled as a whole (or could not be submitted) ends
+ * {@code FAILED} and is not marked translated.
+ */
+@Service
+public class BulkTranslationService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkTranslationService.class);
+
+    private final BatchPredictionClient client;
+    private final GeminiPromptFactory promptFactory;
+    private final GeminiTranslationService translationService;
+    private final GeminiApiConfig geminiApiConfig;
+    private final TokenUsageService tokenUsage;
+    private final SRTService srtService;
+    private final int maxRequestsPerSubmission;
+
+    private final Map<String, BulkJob> bulkJobs = new ConcurrentHashMap<>();
+
+    public BulkTranslationService(BatchPredictionClient client, GeminiPromptFactory promptFactory,
+            GeminiTranslationService translationService, GeminiApiConfig geminiApiConfig, TokenUsageService tokenUsage,
+            SRTService srtService,
+            @Value("${translation.bulk.max-requests-per-submission:500}") int maxRequestsPerSubmission) {
+        this.client = client;
+        this.promptFactory = promptFactory;
+        this.translationService = translationService;
+        this.geminiApiConfig = geminiApiConfig;
+        this.tokenUsage = tokenUsage;
+        this.srtService = srtService;
+        this.maxRequestsPerSubmission = Math.max(1, maxRequestsPerSubmission);
+    }
+
+    private record BatchKey(TranslationJob job, Path file, String language, List<SubtitleEntry> batch) {}
+
+    private static final class BulkJob {
+        private final String bulkId;
+        private final Instant submittedAt = Instant.now();
+        private final List<TranslationJob> jobs;
+        private final List<String> languages;
+        // By request key: jobId/fileIndex/language/batchIndex
+        private final Map<String, BatchKey> batches;
+        // Submission name -> request keys it carries
+        private final Map<String, List<String>> submissions = new LinkedHashMap<>();
+        // By submission name, once that submission is done
+        private final Map<String, BatchPredictionResult> results = new ConcurrentHashMap<>();
+        private volatile String state = "RUNNING";
+
+        private BulkJob(String bulkId, List<TranslationJob> jobs, List<String> languages, Map<String, BatchKey> batches) {
+            this.bulkId = bulkId;
+            this.jobs = jobs;
+            this.languages = languages;
+            this.batches = batches;
+        }
+    }
+
+    /**
+     * Submits every batch of {@code jobs} in every language and returns the bulk job's id. Throws
+     * {@link JobAlreadyStartedException}, starting none of them, when one of the jobs is no longer UPLOADED.
+     */
+    public String submit(List<TranslationJob> jobs, List<String> languages) {
+        // Claimed before anything is submitted, so a concurrent /startTranslate cannot run them too
+        List<TranslationJob> claimed = new ArrayList<>();
+        for (TranslationJob job : jobs) {
+            if (!job.compareAndSetStatus(JobStatus.UPLOADED, JobStatus.RUNNING)) {
+                release(claimed);
+                throw new JobAlreadyStartedException(job.getJobId());
+            }
+            claimed.add(job);
+        }
+        int batchSize = Math.max(1, geminiApiConfig.getBatchSize());
+        Map<String, BatchKey> batches = new LinkedHashMap<>();
+        Map<String, GeminiDtos.GeminiRequest> requests = new LinkedHashMap<>();
+        for (TranslationJob job : jobs) {
+            int fileIndex = 0;
+            for (Map.Entry<Path, List<SubtitleEntry>> file : job.getEntriesByFile().entrySet()) {
+                List<SubtitleEntry> entries = file.getValue();
+                for (String language : languages) {
+                    for (int from = 0, batchIndex = 0; from < entries.size(); from += batchSize, batchIndex++) {
+                        List<SubtitleEntry> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+                        String key = job.getJobId() + "/" + fileIndex + "/" + language + "/" + batchIndex;
+                        batches.put(key, new BatchKey(job, file.getKey(), language, batch));
+                        requests.put(key, promptFactory.buildInlineRequest(batch, language));
+                    }
+                }
+                fileIndex++;
+            }
+        }
+
+        String bulkId = UUID.randomUUID().toString();
+        BulkJob bulkJob = new BulkJob(bulkId, List.copyOf(jobs), List.copyOf(languages), batches);
+        List<String> keys = new ArrayList<>(requests.keySet());
+        for (int from = 0, part = 0; from < keys.size(); from += maxRequestsPerSubmission, part++) {
+            List<String> chunkKeys = List.copyOf(keys.subList(from, Math.min(from + maxRequestsPerSubmission, keys.size())));
+            Map<String, GeminiDtos.GeminiRequest> chunk = new LinkedHashMap<>();
+            chunkKeys.forEach(key -> chunk.put(key, requests.get(key)));
+            try {
+                bulkJob.submissions.put(client.submit("bulk-" + bulkId + "-" + part, chunk).block(), chunkKeys);
+            } catch (RuntimeException e) {
+                if (bulkJob.submissions.isEmpty()) {
+                    release(claimed);
+                    throw e; // Nothing submitted yet, nothing to follow up
+                }
+                // Earlier submissions are already paid for: keep polling them and fail the rest
+                String unsubmitted = "unsubmitted-" + bulkId + "-" + part;
+                logger.error("Bulk job {}: submission {} failed, {} requests not submitted: {}", bulkId, part,
+                        keys.size() - from, e.getMessage());
+                bulkJob.submissions.put(unsubmitted, List.copyOf(keys.subList(from, keys.size())));
+                bulkJob.results.put(unsubmitted,
+                        new BatchPredictionResult(unsubmitted, BatchPredictionResult.State.FAILED, Map.of(), Map.of()));
+                break;
+            }
+        }
+        bulkJobs.put(bulkId, bulkJob);
+        logger.info("Bulk job {} submitted {} requests for {} jobs into {} in {} submissions", bulkId, requests.size(),
+                jobs.size(), languages, bulkJob.submissions.size());
+        return bulkId;
+    }
+
+    // Hands jobs that were claimed but not submitted back, so they can be started again
+    private static void release(List<TranslationJob> claimed) {
+        claimed.forEach(job -> job.compareAndSetStatus(JobStatus.RUNNING, JobStatus.UPLOADED));
+    }
+
+    @Scheduled(fixedDelayString = "${translation.bulk.poll-interval-ms:60000}")
+    public void poll() {
+        for (BulkJob bulkJob : bulkJobs.values()) {
+            if (!"RUNNING".equals(bulkJob.state)) {
+                continue;
+            }
+            try {
+                for (String submission : bulkJob.submissions.keySet()) {
+                    if (!bulkJob.results.containsKey(submission)) {
+                        BatchPredictionResult result = client.poll(submission).block();
+                        if (result != null && result.isDone()) {
+                            bulkJob.results.put(submission, result);
+                        }
+                    }
+                }
+                if (bulkJob.results.size() == bulkJob.submissions.size()) {
+                    complete(bulkJob);
+                }
+            } catch (RuntimeException e) {
+                // Transient poll failures are retried on the next run
+                logger.warn("Polling bulk job {} failed: {}", bulkJob.bulkId, e.getMessage());
+            }
+        }
+    }
+
+    public Optional<Map<String, Object>> status(String bulkId) {
+        BulkJob bulkJob = bulkJobs.get(bulkId);
+        if (bulkJob == null) {
+            return Optional.empty();
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("bulkId", bulkJob.bulkId);
+        status.put("state", bulkJob.state);
+        status.put("submittedAt", bulkJob.submittedAt);
+        status.put("jobs", bulkJob.jobs.stream().map(TranslationJob::getJobId).toList());
+        status.put("languages", bulkJob.languages);
+        status.put("requests", bulkJob.batches.size());
+        Map<String, Object> submissions = new LinkedHashMap<>();
+        for (String name : bulkJob.submissions.keySet()) {
+            BatchPredictionResult result = bulkJob.results.get(name);
+            submissions.put(name, result == null ? "RUNNING" : result.state());
+        }
+        status.put("submissions", submissions);
+        return Optional.of(status);
+    }
+
+    private void complete(BulkJob bulkJob) {
+        Map<String, GeminiDtos.GeminiResponse> responses = new LinkedHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        // Requests of submissions that did not succeed as a whole
+        Set<String> failedKeys = new HashSet<>();
+        for (BatchPredictionResult result : bulkJob.results.values()) {
+            responses.putAll(result.responses());
+            errors.putAll(result.errors());
+            if (result.state() != BatchPredictionResult.State.SUCCEEDED) {
+                logger.warn("Bulk job {}: submission {} ended {}", bulkJob.bulkId, result.name(), result.state());
+                failedKeys.addAll(bulkJob.submissions.getOrDefault(result.name(), List.of()));
+            }
+        }
+        Set<TranslationJob> failedJobs = new HashSet<>();
+        failedKeys.forEach(key -> failedJobs.add(bulkJob.batches.get(key).job()));
+
+        // Keys are in entry order per job, file and language, so appending rebuilds every file
+        Map<TranslationJob, Map<String, Map<Path, List<SubtitleEntry>>>> translated = new LinkedHashMap<>();
+        int failedBatches = 0;
+        for (Map.Entry<String, BatchKey> batch : bulkJob.batches.entrySet()) {
+            BatchKey key = batch.getValue();
+            GeminiDtos.GeminiResponse response = responses.get(batch.getKey());
+            List<SubtitleEntry> entries;
+            if (response == null) {
+                failedBatches++;
+                logger.warn("Bulk job {}: no response for {}: {}", bulkJob.bulkId, batch.getKey(),
+                        errors.getOrDefault(batch.getKey(), "missing from results"));
+                entries = translationService.markBatch(key.batch(), " [API Error]");
+            } else {
+                tokenUsage.record(TokenUsageService.context(key.job().getJobId(), key.file().getFileName().toString(), null),
+                        key.language(), geminiApiConfig.getApiKey(), key.batch().size(), response.usageMetadata());
+                entries = translationService.processBatchResponse(response, key.batch());
+            }
+            translated.computeIfAbsent(key.job(), job -> new LinkedHashMap<>())
+                    .computeIfAbsent(key.language(), language -> new LinkedHashMap<>())
+                    .computeIfAbsent(key.file(), file -> new ArrayList<>())
+                    .addAll(entries);
+        }
+
+        int cancelled = 0;
+        for (Map.Entry<TranslationJob, Map<String, Map<Path, List<SubtitleEntry>>>> result : translated.entrySet()) {
+            TranslationJob job = result.getKey();
+            if (failedJobs.contains(job) && !job.isCancelled()) {
+                // Whole submissions are missing: a file of source text is no translation
+                job.setStatus(JobStatus.FAILED);
+                continue;
+            }
+            if (job.isCancelled()) {
+                // Cancelled while the batch ran: nothing is written, the job's files go like on any cancellation
+                cancelled++;
+                job.setStatus(JobStatus.CANCELLED);
+                if (!job.getFiles().isEmpty() && job.getFiles().get(0).getParent() != null) {
+                    srtService.deleteDirectoryRecursively(job.getFiles().get(0).getParent());
+                }
+                continue;
+            }
+            Map<String, Map<Path, List<SubtitleEntry>>> verified = verify(job, result.getValue());
+            long failedLines = verified.values().stream().flatMap(byFile -> byFile.values().stream())
+                    .flatMap(List::stream).filter(GeminiTranslationService::isFailedTranslation).count();
+            if (failedLines > 0) {
+                logger.warn("Bulk job {}: job {} still has {} untranslated lines after verification", bulkJob.bulkId,
+                        job.getJobId(), failedLines);
+                job.setStatus(JobStatus.FAILED);
+                continue;
+            }
+            if (!write(job, verified)) {
+                job.setStatus(JobStatus.FAILED);
+                continue;
+            }
+            verified.forEach((language, byFile) -> job.getTranslatedByFile(language).putAll(byFile));
+            job.setStatus(JobStatus.COMPLETED);
+        }
+        bulkJob.state = failedBatches == 0 ? "COMPLETED" : "COMPLETED_WITH_ERRORS";
+        logger.info("Bulk job {} finished: {} requests, {} without a response, {} jobs failed, {} jobs cancelled meanwhile",
+                bulkJob.bulkId, bulkJob.batches.size(), failedBatches, failedJobs.size(), cancelled);
+    }
+
+    // Re-translates failing lines online, file by file; runs on the polling thread like the polls themselves
+    private Map<String, Map<Path, List<SubtitleEntry>>> verify(TranslationJob job,
+            Map<String, Map<Path, List<SubtitleEntry>>> byLanguage) {
+        Map<String, Map<Path, List<SubtitleEntry>>> verified = new LinkedHashMap<>();
+        byLanguage.forEach((language, byFile) -> byFile.forEach((file, entries) -> {
+            List<SubtitleEntry> checked = entries;
+            try {
+                checked = translationService.verify(entries, language)
+                        .contextWrite(TokenUsageService.context(job.getJobId(), file.getFileName().toString(), null))
+                        .block();
+            } catch (RuntimeException e) {
+                logger.warn("Verifying {} of job {} in {} failed: {}", file.getFileName(), job.getJobId(), language,
+                        e.getMessage());
+            }
+            verified.computeIfAbsent(language, key -> new LinkedHashMap<>()).put(file, checked);
+        }));
+        return verified;
+    }
+
+    // False when an output file could not be written; the job must then not end COMPLETED
+    private boolean write(TranslationJob job, Map<String, Map<Path, List<SubtitleEntry>>> byLanguage) {
+        for (Map.Entry<String, Map<Path, List<SubtitleEntry>>> language : byLanguage.entrySet()) {
+            for (Map.Entry<Path, List<SubtitleEntry>> file : language.getValue().entrySet()) {
+                try {
+                    srtService.saveSRTToFile(srtService.generateSRT(file.getValue()),
+                            TranslationJob.outputFile(file.getKey(), language.getKey()).toString());
+                } catch (IOException e) {
+                    logger.error("Could not write translated file {} for job {}: {}", file.getKey(), job.getJobId(),
+                            e.getMessage());
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
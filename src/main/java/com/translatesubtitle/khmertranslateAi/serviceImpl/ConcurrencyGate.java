@@ -0,0 +1,114 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Non-blocking semaphore for Monos: at most {@code limit} calls run at once, later ones wait in
+ * FIFO order without holding a thread. A permit is returned when the call completes, fails or is
+ * cancelled, also when it is cancelled while still waiting.
+ * <p>
+ * The limit may be a live setting: it is read whenever a permit is requested or returned, so a
+ * raised limit admits waiting calls at once and a lowered one lets running calls finish.
+ */
+final class ConcurrencyGate {
+
+    private final IntSupplier limit;
+    private final Queue<Waiter> waiting = new ArrayDeque<>();
+    private int active;
+
+    ConcurrencyGate(int limit) {
+        this(() -> limit);
+    }
+
+    ConcurrencyGate(IntSupplier limit) {
+        this.limit = limit;
+    }
+
+    <T> Mono<T> run(Supplier<Mono<T>> call) {
+        return Mono.usingWhen(acquire(), permit -> call.get(), Permit::release, (permit, error) -> permit.release(),
+                Permit::release);
+    }
+
+    synchronized int waiting() {
+        return waiting.size();
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            sink.onCancel(() -> cancel(waiter));
+            synchronized (this) {
+                waiting.add(waiter);
+            }
+            grant();
+        });
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit granted;
+        synchronized (this) {
+            waiter.cancelled = true;
+            granted = waiting.remove(waiter) ? null : waiter.permit;
+        }
+        // Granted just before the cancellation: nobody will use it
+        if (granted != null) {
+            granted.release().subscribe();
+        }
+    }
+
+    // Hands out permits in FIFO order while fewer than the current limit are in use
+    private void grant() {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            int current = Math.max(1, limit.getAsInt());
+            while (active < current && !waiting.isEmpty()) {
+                Waiter next = waiting.poll();
+                if (next.cancelled) {
+                    continue;
+                }
+                active++;
+                next.permit = new Permit();
+                granted.add(next);
+            }
+        }
+        granted.forEach(next -> next.sink.success(next.permit));
+    }
+
+    private void handOver() {
+        synchronized (this) {
+            active--;
+        }
+        grant();
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private Permit permit;
+        private boolean cancelled;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Mono<Void> release() {
+            return Mono.fromRunnable(() -> {
+                if (released.compareAndSet(false, true)) {
+                    handOver();
+                }
+            });
+        }
+    }
+}
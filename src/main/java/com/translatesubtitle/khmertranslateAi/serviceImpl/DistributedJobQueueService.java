@@ -0,0 +1,346 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.translatesubtitle.khmertranslateAi.dto.JobStatus;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.dto.TokenUsage;
+import com.translatesubtitle.khmertranslateAi.dto.TranslationJob;
+import com.translatesubtitle.khmertranslateAi.entity.BatchStatus;
+import com.translatesubtitle.khmertranslateAi.entity.TranslationBatchRecord;
+import com.translatesubtitle.khmertranslateAi.entity.TranslationFileRecord;
+import com.translatesubtitle.khmertranslateAi.entity.TranslationJobRecord;
+import com.translatesubtitle.khmertranslateAi.repository.TranslationBatchRecordRepository;
+import com.translatesubtitle.khmertranslateAi.repository.TranslationFileRecordRepository;
+import com.translatesubtitle.khmertranslateAi.repository.TranslationJobRecordRepository;
+import com.translatesubtitle.khmertranslateAi.service.SRTService;
+import com.translatesubtitle.khmertranslateAi.service.TranslationJobService.JobAlreadyStartedException;
+
+/**
+ * Durable work queue in the {@code translation_jobs} database, shared by every node.
+ * <p>
+ * An upload is stored as a job row plus its parsed files, so any node can start it. Starting a job
+ * splits every file into batches per target language; worker nodes claim batches with
+ * {@code FOR UPDATE SKIP LOCKED}, hold them under a lease they keep alive with heartbeats, and
+ * write the translated entries back. A batch whose node died is claimed again once its lease
+ * expires, until it has used {@code translation.queue.max-attempts}. Status and downloads are assembled from the rows, so any node can serve them.
+ */
+@Service
+public class DistributedJobQueueService {
+    private static final Logger logger = LoggerFactory.getLogger(DistributedJobQueueService.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final TypeReference<List<SubtitleEntry>> ENTRY_LIST = new TypeReference<>() {};
+
+    private final TranslationJobRecordRepository jobRepository;
+    private final TranslationFileRecordRepository fileRepository;
+    private final TranslationBatchRecordRepository batchRepository;
+    private final GeminiApiConfig geminiApiConfig;
+    private final SRTService srtService;
+
+    public DistributedJobQueueService(TranslationJobRecordRepository jobRepository,
+            TranslationFileRecordRepository fileRepository, TranslationBatchRecordRepository batchRepository,
+            GeminiApiConfig geminiApiConfig, SRTService srtService) {
+        this.jobRepository = jobRepository;
+        this.fileRepository = fileRepository;
+        this.batchRepository = batchRepository;
+        this.geminiApiConfig = geminiApiConfig;
+        this.srtService = srtService;
+    }
+
+    public record AssembledFile(String fileName, String srtContent) {}
+
+    @Transactional
+    public void register(TranslationJob job) {
+        Instant now = Instant.now();
+        TranslationJobRecord record = new TranslationJobRecord();
+        record.setJobId(job.getJobId());
+        record.setStatus(JobStatus.UPLOADED);
+        record.setCreatedAt(now);
+        record.setUpdatedAt(now);
+        jobRepository.save(record);
+
+        int fileIndex = 0;
+        for (Map.Entry<Path, List<SubtitleEntry>> file : job.getEntriesByFile().entrySet()) {
+            TranslationFileRecord fileRecord = new TranslationFileRecord();
+            fileRecord.setJobId(job.getJobId());
+            fileRecord.setFileIndex(fileIndex++);
+            fileRecord.setFileName(file.getKey().getFileName().toString());
+            fileRecord.setEntriesJson(toJson(file.getValue()));
+            fileRepository.save(fileRecord);
+        }
+    }
+
+    /**
+     * Splits every file of the job into batches per language and makes them claimable.
+     * Returns the number of batches queued, or empty when the job is unknown. A job is queued once:
+     * starting it again throws {@link JobAlreadyStartedException} instead of queueing its batches twice.
+     */
+    @Transactional
+    public Optional<Integer> enqueue(String jobId, List<String> targetLanguages) {
+        Instant now = Instant.now();
+        // Row lock on the job: a concurrent start waits here and then finds it no longer UPLOADED
+        if (jobRepository.startUploaded(jobId, now) == 0) {
+            if (jobRepository.existsById(jobId)) {
+                throw new JobAlreadyStartedException(jobId);
+            }
+            return Optional.empty();
+        }
+        Optional<TranslationJobRecord> job = jobRepository.findById(jobId);
+        int batchSize = Math.max(1, geminiApiConfig.getBatchSize());
+        int queued = 0;
+        for (TranslationFileRecord file : fileRepository.findByJobIdOrderByFileIndex(jobId)) {
+            List<SubtitleEntry> entries = fromJson(file.getEntriesJson());
+            for (String language : targetLanguages) {
+                for (int start = 0, batchIndex = 0; start < entries.size(); start += batchSize, batchIndex++) {
+                    TranslationBatchRecord batch = new TranslationBatchRecord();
+                    batch.setJobId(jobId);
+                    batch.setFileIndex(file.getFileIndex());
+                    batch.setLanguage(language);
+                    batch.setBatchIndex(batchIndex);
+                    batch.setStatus(BatchStatus.PENDING);
+                    batch.setSourceJson(toJson(entries.subList(start, Math.min(start + batchSize, entries.size()))));
+                    batch.setCreatedAt(now);
+                    batch.setUpdatedAt(now);
+                    batchRepository.save(batch);
+                    queued++;
+                }
+            }
+        }
+
+        TranslationJobRecord record = job.get();
+        record.setStatus(queued == 0 ? JobStatus.COMPLETED : JobStatus.RUNNING);
+        record.setLanguages(String.join(",", targetLanguages));
+        record.setTotalBatches(queued);
+        record.setUpdatedAt(now);
+        logger.info("Queued job {} as {} batches for {}", jobId, queued, targetLanguages);
+        return Optional.of(queued);
+    }
+
+    /**
+     * Claims up to {@code limit} batches for {@code owner}, leased for {@code lease}. Batches whose
+     * lease expired on their last of {@code maxAttempts} attempts are failed instead of reclaimed.
+     */
+    @Transactional
+    public List<TranslationBatchRecord> claim(String owner, int limit, Duration lease, int maxAttempts) {
+        Instant now = Instant.now();
+        List<String> exhaustedJobs = batchRepository.findJobsWithExpiredLeases(now, maxAttempts);
+        if (!exhaustedJobs.isEmpty()) {
+            int failed = batchRepository.failExpiredLeases(now, maxAttempts,
+                    "Lease expired after " + maxAttempts + " attempts");
+            logger.error("Failed {} batches of jobs {} whose lease expired after {} attempts", failed, exhaustedJobs,
+                    maxAttempts);
+            exhaustedJobs.forEach(this::finishJobIfDone);
+        }
+        List<TranslationBatchRecord> claimed = batchRepository.lockClaimable(now, limit, maxAttempts);
+        for (TranslationBatchRecord batch : claimed) {
+            if (batch.getStatus() == BatchStatus.CLAIMED) {
+                logger.warn("Reclaiming batch {} of job {} from {} whose lease expired", batch.getId(),
+                        batch.getJobId(), batch.getLeaseOwner());
+            }
+            batch.setStatus(BatchStatus.CLAIMED);
+            batch.setLeaseOwner(owner);
+            batch.setLeaseExpiresAt(now.plus(lease));
+            batch.setAttempts(batch.getAttempts() + 1);
+            batch.setUpdatedAt(now);
+        }
+        return claimed;
+    }
+
+    /**
+     * Extends the leases of the given batches and returns the ids still held by {@code owner};
+     * the others were cancelled or reclaimed after an expired lease and should be abandoned.
+     */
+    @Transactional
+    public List<Long> heartbeat(String owner, Collection<Long> batchIds, Duration lease) {
+        Instant now = Instant.now();
+        batchRepository.extendLeases(batchIds, owner, now.plus(lease), now);
+        return batchRepository.findHeldIds(batchIds, owner);
+    }
+
+    /**
+     * Cancels a queued or running job: its open batches are never claimed again, and workers drop
+     * in-flight ones at their next heartbeat. Returns false when the job is unknown or finished.
+     */
+    @Transactional
+    public boolean cancel(String jobId) {
+        Instant now = Instant.now();
+        if (jobRepository.cancel(jobId, now) == 0) {
+            return false;
+        }
+        int batches = batchRepository.cancelOpen(jobId, now);
+        logger.info("Cancelled job {} with {} open batches", jobId, batches);
+        return true;
+    }
+
+    @Transactional
+    public void complete(TranslationBatchRecord batch, String owner, List<SubtitleEntry> translated, TokenUsage usage) {
+        if (batchRepository.complete(batch.getId(), owner, toJson(translated), usage.getPromptTokens(),
+                usage.getOutputTokens(), usage.getTotalTokens(), Instant.now()) == 0) {
+            logger.warn("Dropping result of batch {} of job {}: lease no longer held by {}", batch.getId(),
+                    batch.getJobId(), owner);
+            return;
+        }
+        finishJobIfDone(batch.getJobId());
+    }
+
+    /**
+     * Gives a batch back after an error: it is claimable again until {@code maxAttempts} is reached.
+     */
+    @Transactional
+    public void fail(TranslationBatchRecord batch, String owner, String error, int maxAttempts) {
+        BatchStatus status = batch.getAttempts() >= maxAttempts ? BatchStatus.FAILED : BatchStatus.PENDING;
+        if (batchRepository.release(batch.getId(), owner, status, error, Instant.now()) > 0 && status == BatchStatus.FAILED) {
+            logger.error("Batch {} of job {} failed after {} attempts: {}", batch.getId(), batch.getJobId(),
+                    batch.getAttempts(), error);
+            finishJobIfDone(batch.getJobId());
+        }
+    }
+
+    /**
+     * Gives a batch back that could not run for a reason of its own node (daily token budget), without
+     * using up one of its attempts: another node, or this one after the reset, takes it up again.
+     */
+    @Transactional
+    public void pause(TranslationBatchRecord batch, String owner, String reason) {
+        batchRepository.pause(batch.getId(), owner, reason, Instant.now());
+    }
+
+    /**
+     * Tokens used by the finished batches of a job, across all nodes.
+     */
+    @Transactional(readOnly = true)
+    public long tokensUsed(String jobId) {
+        return batchRepository.sumTotalTokensByJobId(jobId);
+    }
+
+    private void finishJobIfDone(String jobId) {
+        if (batchRepository.countByJobIdAndStatus(jobId, BatchStatus.PENDING) > 0
+                || batchRepository.countByJobIdAndStatus(jobId, BatchStatus.CLAIMED) > 0) {
+            return;
+        }
+        JobStatus status = batchRepository.countByJobIdAndStatus(jobId, BatchStatus.FAILED) > 0
+                ? JobStatus.FAILED : JobStatus.COMPLETED;
+        if (jobRepository.finishRunning(jobId, status, Instant.now()) > 0) {
+            logger.info("Job {} finished as {}", jobId, status);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> status(String jobId) {
+        return jobRepository.findById(jobId).map(job -> {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("jobId", job.getJobId());
+            status.put("status", job.getStatus());
+            status.put("languages", job.getLanguages() == null ? List.of() : List.of(job.getLanguages().split(",")));
+            status.put("files", fileRepository.findByJobIdOrderByFileIndex(jobId).stream()
+                    .map(TranslationFileRecord::getFileName).toList());
+            status.put("totalBatches", batchRepository.countByJobId(jobId));
+            for (BatchStatus batchStatus : BatchStatus.values()) {
+                status.put(batchStatus.name().toLowerCase() + "Batches", batchRepository.countByJobIdAndStatus(jobId, batchStatus));
+            }
+            Object[] tokens = batchRepository.sumTokensByJobId(jobId).get(0);
+            Map<String, Object> usage = new LinkedHashMap<>();
+            usage.put("promptTokens", tokens[0]);
+            usage.put("outputTokens", tokens[1]);
+            usage.put("totalTokens", tokens[2]);
+            status.put("usage", usage);
+            status.put("updatedAt", job.getUpdatedAt());
+            return status;
+        });
+    }
+
+    /**
+     * The translated SRT of one file, once none of its batches for {@code language} is still
+     * queued or running. Lines of failed batches keep their source text.
+     */
+    @Transactional(readOnly = true)
+    public Optional<AssembledFile> assemble(String jobId, String language, int fileIndex) {
+        Optional<TranslationFileRecord> file = fileRepository.findByJobIdAndFileIndex(jobId, fileIndex);
+        List<TranslationBatchRecord> batches = batchRepository
+                .findByJobIdAndLanguageAndFileIndexOrderByBatchIndex(jobId, language, fileIndex);
+        if (file.isEmpty() || batches.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<SubtitleEntry> translated = new ArrayList<>();
+        for (TranslationBatchRecord batch : batches) {
+            switch (batch.getStatus()) {
+                case DONE -> translated.addAll(fromJson(batch.getResultJson()));
+                case FAILED -> fromJson(batch.getSourceJson()).forEach(entry -> {
+                    entry.setTranslatedText(entry.getText());
+                    translated.add(entry);
+                });
+                default -> {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(new AssembledFile(file.get().getFileName(), srtService.generateSRT(translated)));
+    }
+
+    public record PartialFile(String fileName, String srtContent, int translatedEntries, int totalEntries) {}
+
+    /**
+     * The contiguous translated prefix of a file: its batches in order up to the first one not done
+     * yet (failed batches count as done and keep the source text, as in {@link #assemble}).
+     */
+    @Transactional(readOnly = true)
+    public Optional<PartialFile> assemblePrefix(String jobId, String language, int fileIndex) {
+        Optional<TranslationFileRecord> file = fileRepository.findByJobIdAndFileIndex(jobId, fileIndex);
+        if (file.isEmpty()) {
+            return Optional.empty();
+        }
+        List<SubtitleEntry> translated = new ArrayList<>();
+        for (TranslationBatchRecord batch : batchRepository
+                .findByJobIdAndLanguageAndFileIndexOrderByBatchIndex(jobId, language, fileIndex)) {
+            if (batch.getStatus() == BatchStatus.DONE) {
+                translated.addAll(fromJson(batch.getResultJson()));
+            } else if (batch.getStatus() == BatchStatus.FAILED) {
+                fromJson(batch.getSourceJson()).forEach(entry -> {
+                    entry.setTranslatedText(entry.getText());
+                    translated.add(entry);
+                });
+            } else {
+                break;
+            }
+        }
+        int total = fromJson(file.get().getEntriesJson()).size();
+        return Optional.of(new PartialFile(file.get().getFileName(), srtService.generateSRT(translated), translated.size(), total));
+    }
+
+    public List<SubtitleEntry> entries(TranslationBatchRecord batch) {
+        return fromJson(batch.getSourceJson());
+    }
+
+    private static String toJson(List<SubtitleEntry> entries) {
+        try {
+            return objectMapper.writeValueAsString(entries);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize subtitle entries", e);
+        }
+    }
+
+    private static List<SubtitleEntry> fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, ENTRY_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored subtitle entries", e);
+        }
+    }
+}
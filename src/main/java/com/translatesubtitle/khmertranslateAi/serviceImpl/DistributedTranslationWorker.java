@@ -0,0 +1,158 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.translatesubtitle.khmertranslateAi.dto.TokenUsage;
+import com.translatesubtitle.khmertranslateAi.entity.TranslationBatchRecord;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Worker side of the distributed queue: polls {@link DistributedJobQueueService} for batches,
+ * translates up to {@code translation.queue.worker-concurrency} of them at a time with this
+ * node's Gemini key, and keeps their leases alive until the result is written back.
+ * Always created eagerly, so a lazily initialized worker node starts polling right away.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "translation.queue.distributed", havingValue = "true")
+public class DistributedTranslationWorker {
+    private static final Logger logger = LoggerFactory.getLogger(DistributedTranslationWorker.class);
+
+    private final DistributedJobQueueService queue;
+    private final GeminiTranslationService translationService;
+    private final TokenUsageService tokenUsage;
+    private final String nodeId;
+    private final int concurrency;
+    private final Duration lease;
+    private final int maxAttempts;
+
+    // Batches this node is translating, by id; heartbeats extend their leases
+    private final Map<Long, Disposable> inFlight = new ConcurrentHashMap<>();
+
+    public DistributedTranslationWorker(DistributedJobQueueService queue, GeminiTranslationService translationService,
+            TokenUsageService tokenUsage,
+            @Value("${translation.queue.node-id:}") String nodeId,
+            @Value("${translation.queue.worker-concurrency:2}") int concurrency,
+            @Value("${translation.queue.lease-seconds:120}") long leaseSeconds,
+            @Value("${translation.queue.max-attempts:3}") int maxAttempts) {
+        this.queue = queue;
+        this.translationService = translationService;
+        this.tokenUsage = tokenUsage;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.concurrency = concurrency;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        logger.info("Distributed translation worker {} started with {} concurrent batches", this.nodeId, concurrency);
+    }
+
+    @Scheduled(fixedDelayString = "${translation.queue.poll-interval-ms:2000}")
+    public void poll() {
+        int free = concurrency - inFlight.size();
+        // The daily budget belongs to this node's key: stop claiming and leave the batches to other nodes
+        if (free <= 0 || tokenUsage.isDailyBudgetExhausted()) {
+            return;
+        }
+        for (TranslationBatchRecord batch : queue.claim(nodeId, free, lease, maxAttempts)) {
+            process(batch);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${translation.queue.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        List<Long> translating = List.copyOf(inFlight.keySet());
+        Set<Long> held = Set.copyOf(queue.heartbeat(nodeId, translating, lease));
+        for (Long batchId : translating) {
+            if (!held.contains(batchId)) {
+                // Cancelled job or lost lease: stop the Gemini requests instead of finishing unwanted work
+                Disposable translation = inFlight.remove(batchId);
+                if (translation != null) {
+                    logger.info("Worker {} abandoning batch {}: cancelled or no longer leased", nodeId, batchId);
+                    translation.dispose();
+                }
+            }
+        }
+    }
+
+    private void process(TranslationBatchRecord batch) {
+        long perJob = tokenUsage.getTokensPerJob();
+        if (perJob > 0 && queue.tokensUsed(batch.getJobId()) >= perJob) {
+            queue.fail(batch, nodeId, "Job token budget of " + perJob + " tokens exhausted", 0);
+            return;
+        }
+        // Registered before subscribing so a fast completion cannot run ahead of the bookkeeping
+        Disposable.Swap slot = Disposables.swap();
+        inFlight.put(batch.getId(), slot);
+        logger.info("Worker {} translating batch {} ({} #{}) of job {}", nodeId, batch.getId(), batch.getLanguage(),
+                batch.getBatchIndex(), batch.getJobId());
+
+        TokenUsage usage = new TokenUsage();
+        slot.update(translationService.translateSubtitles(queue.entries(batch), batch.getLanguage())
+                .contextWrite(TokenUsageService.context(batch.getJobId(), "file-" + batch.getFileIndex(), usage))
+                // Results are written with blocking JDBC, never on the HTTP client's event loop
+                .publishOn(Schedulers.boundedElastic())
+                .doFinally(signal -> inFlight.remove(batch.getId()))
+                .subscribe(
+                        translated -> {
+                            // API errors come back as marker lines, not as errors: retry them like one
+                            long failedLines = translated.stream().filter(GeminiTranslationService::isFailedTranslation).count();
+                            if (failedLines > 0) {
+                                logger.warn("Batch {} of job {} has {} untranslated lines on {}", batch.getId(),
+                                        batch.getJobId(), failedLines, nodeId);
+                                queue.fail(batch, nodeId, failedLines + " of " + translated.size() + " lines failed translation",
+                                        maxAttempts);
+                                return;
+                            }
+                            queue.complete(batch, nodeId, translated, usage);
+                        },
+                        error -> {
+                            logger.warn("Batch {} of job {} failed on {}: {}", batch.getId(), batch.getJobId(), nodeId,
+                                    error.getMessage());
+                            // Over the daily budget the batch is paused (handed back without using up an attempt)
+                            if (error instanceof TokenUsageService.TokenBudgetExceededException budget
+                                    && budget.getRetryAfterSeconds() > 0) {
+                                queue.pause(batch, nodeId, error.getMessage());
+                                return;
+                            }
+                            queue.fail(batch, nodeId, error.getMessage(), maxAttempts);
+                        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Leases are left to expire so another node picks the batches up
+        inFlight.values().forEach(Disposable::dispose);
+        inFlight.clear();
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
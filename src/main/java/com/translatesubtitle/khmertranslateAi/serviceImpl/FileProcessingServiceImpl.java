@@ -1,6 +1,9 @@
 package com.translatesubtitle.khmertranslateAi.serviceImpl;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -49,6 +52,65 @@ public class FileProcessingServiceImpl implements FileProcessingService {
         return targetLocation;
 	}
 
+	/**
+	 * Location for a file of a new job that is written while it is being received.
+	 */
+	@Override
+	public Path newJobFile(String originalFilename) throws IOException {
+		if (originalFilename == null || originalFilename.isBlank()) {
+			throw new IllegalArgumentException("File name cannot be null.");
+		}
+		String fileName = Path.of(StringUtils.cleanPath(originalFilename)).getFileName().toString();
+		Path jobDirectory = this.fileStorageLocation.resolve(UUID.randomUUID().toString());
+		Files.createDirectories(jobDirectory);
+		return jobDirectory.resolve(fileName);
+	}
+
+	/**
+	 * Wraps an upload so that every byte read from it is also written to {@code target}; the copy
+	 * is complete once the returned stream has been read to the end and closed.
+	 */
+	@Override
+	public InputStream saveWhileReading(InputStream in, Path target) throws IOException {
+		OutputStream copy = Files.newOutputStream(target);
+		return new FilterInputStream(in) {
+			private boolean closed;
+
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b >= 0) {
+					copy.write(b);
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				int n = super.read(buffer, offset, length);
+				if (n > 0) {
+					copy.write(buffer, offset, n);
+				}
+				return n;
+			}
+
+			@Override
+			public void close() throws IOException {
+				// Closed by the parser and again by the caller's try-with-resources
+				if (closed) {
+					return;
+				}
+				closed = true;
+				try {
+					super.close();
+				} finally {
+					copy.close();
+					logger.info("Saved streamed upload to {}", target);
+				}
+			}
+		};
+	}
+
 	@Override
 	public List<Path> processFiles(List<MultipartFile> files) {
 		String jobId = UUID.randomUUID().toString();
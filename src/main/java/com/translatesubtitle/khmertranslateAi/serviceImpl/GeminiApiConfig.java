@@ -1,15 +1,25 @@
 package com.translatesubtitle.khmertranslateAi.serviceImpl; // Or your common config package e.g., com.translatesubtitle.khmertranslateAi.config
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.reactive.function.client.WebClient;
-
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * {@code gemini.api.*} settings, bound and validated at startup (an invalid value fails the start
+ * instead of being ignored). Batch size, concurrency, delay, retries and backoff can also be changed
+ * while running through {@code config.GeminiSettingsEndpoint}; they are read whenever a batch is
+ * formed or dispatched, so the fields are volatile.
+ */
 @Configuration
+@ConfigurationProperties(prefix = "gemini.api")
+@Validated
 public class GeminiApiConfig {
 
-    @Value("${gemini.api.key:}") // Default to empty string if not set
-    private String apiKey;
+    private String apiKey = ""; // Bound from gemini.api.key
 
     // Using the preview model URL
  // In GeminiApiConfig.java
@@ -17,36 +27,63 @@ public class GeminiApiConfig {
     //private final String geminiApiUrl = "https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent";
     //private final String geminiApiUrl = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-pro-preview-05-06:generateContent";
     //(good)
-    private final String geminiApiUrl = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash-preview-04-17:generateContent";
+    private final String geminiBaseUrl = "https://generativelanguage.googleapis.com/v1beta";
+    private final String model = "gemini-2.5-flash-preview-04-17";
+    private final String geminiApiUrl = geminiBaseUrl + "/models/" + model + ":generateContent";
     //private final String geminiApiUrl = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash-preview-05-20:generateContent";
     //private final String geminiApiUrl = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent";
 
     // Rate-limiting and batching parameters with defaults
-    @Value("${gemini.api.concurrent-requests:1}")
-    private int concurrentRequests;
+    @Min(1)
+    @Max(64)
+    private volatile int concurrentRequests = 1;
+
+    @Min(0)
+    @Max(60000)
+    private volatile long delayBetweenBatchRequestMs = 1000;
+
+    @Min(1)
+    @Max(1000)
+    private volatile int batchSize = 5;
 
-    @Value("${gemini.api.delay-between-batch-request-ms:1000}")
-    private long delayBetweenBatchRequestMs;
+    @Min(0)
+    @Max(10)
+    private volatile int maxRetries = 3;
 
-    @Value("${gemini.api.batch-size:5}")
-    private int batchSize;
+    @Min(1)
+    @Max(600)
+    private volatile long initialBackoffSeconds = 2;
 
-    @Value("${gemini.api.max-retries:3}")
-    private int maxRetries;
+    @Min(1)
+    @Max(3600)
+    private volatile long maxRateLimitBackoffSeconds = 60;
 
-    @Value("${gemini.api.initial-backoff-seconds:2}")
-    private long initialBackoffSeconds;
+    // Register the static system instruction once via the cachedContents API and reference it from every batch.
+    // Gemini only caches prefixes above a minimum token count; below that the inline systemInstruction is used.
+    private boolean cachedContentEnabled = false;
 
-    @Value("${gemini.api.max-rate-limit-backoff-seconds:60}")
-    private long maxRateLimitBackoffSeconds;
+    private long cachedContentTtlSeconds = 3600;
 
+    // The WebClient bean itself is built in config.GeminiHttpClientConfig (pool, timeouts, HTTP/2, gzip)
+
+    public String getGeminiApiUrl() {
+        return geminiApiUrl;
+    }
+
+    public String getGeminiBaseUrl() {
+        return geminiBaseUrl;
+    }
+
+    public String getModel() {
+        return model;
+    }
 
-    @Bean
-    WebClient geminiWebClient() {
-        return WebClient.builder()
-                .baseUrl(geminiApiUrl)
-                .defaultHeader("Content-Type", "application/json")
-                .build();
+    public boolean isCachedContentEnabled() {
+        return cachedContentEnabled;
+    }
+
+    public long getCachedContentTtlSeconds() {
+        return cachedContentTtlSeconds;
     }
 
     public String getApiKey() {
@@ -77,6 +114,60 @@ public class GeminiApiConfig {
         return delayBetweenBatchRequestMs;
     }
 
-    // Optional: Add setters if you ever need to modify them programmatically,
-    // but @Value injection is typical for configuration.
-}
\ No newline at end of file
+    @AssertTrue(message = "max-rate-limit-backoff-seconds must not be below initial-backoff-seconds")
+    public boolean isBackoffRangeValid() {
+        return maxRateLimitBackoffSeconds >= initialBackoffSeconds;
+    }
+
+    public void setKey(String apiKey) {
+        this.apiKey = apiKey;
+    }
+
+    public void setCachedContentEnabled(boolean cachedContentEnabled) {
+        this.cachedContentEnabled = cachedContentEnabled;
+    }
+
+    public void setCachedContentTtlSeconds(long cachedContentTtlSeconds) {
+        this.cachedContentTtlSeconds = cachedContentTtlSeconds;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setConcurrentRequests(int concurrentRequests) {
+        this.concurrentRequests = concurrentRequests;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public void setInitialBackoffSeconds(long initialBackoffSeconds) {
+        this.initialBackoffSeconds = initialBackoffSeconds;
+    }
+
+    public void setMaxRateLimitBackoffSeconds(long maxRateLimitBackoffSeconds) {
+        this.maxRateLimitBackoffSeconds = maxRateLimitBackoffSeconds;
+    }
+
+    public void setDelayBetweenBatchRequestMs(long delayBetweenBatchRequestMs) {
+        this.delayBetweenBatchRequestMs = delayBetweenBatchRequestMs;
+    }
+
+    // Candidate for a runtime change, validated before anything is applied
+    public GeminiApiConfig copyTunables() {
+        GeminiApiConfig copy = new GeminiApiConfig();
+        copy.applyTunables(this);
+        return copy;
+    }
+
+    public synchronized void applyTunables(GeminiApiConfig source) {
+        this.batchSize = source.batchSize;
+        this.concurrentRequests = source.concurrentRequests;
+        this.maxRetries = source.maxRetries;
+        this.initialBackoffSeconds = source.initialBackoffSeconds;
+        this.maxRateLimitBackoffSeconds = source.maxRateLimitBackoffSeconds;
+        this.delayBetweenBatchRequestMs = source.delayBetweenBatchRequestMs;
+    }
+}
@@ -0,0 +1,117 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.translatesubtitle.khmertranslateAi.dto.BatchPredictionResult;
+import com.translatesubtitle.khmertranslateAi.dto.GeminiDtos;
+import com.translatesubtitle.khmertranslateAi.service.BatchPredictionClient;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Gemini Batch API ({@code models/{model}:batchGenerateContent}) with inline requests. Each request
+ * carries its key in its metadata, which comes back on the matching inlined response.
+ */
+@Component
+@ConditionalOnProperty(name = "translation.bulk.client", havingValue = "gemini", matchIfMissing = true)
+public class GeminiBatchPredictionClient implements BatchPredictionClient {
+    private static final Logger logger = LoggerFactory.getLogger(GeminiBatchPredictionClient.class);
+    // Responses carry fields (modelVersion, responseId, ...) the DTOs do not map
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final WebClient geminiWebClient;
+    private final GeminiApiConfig geminiApiConfig;
+
+    public GeminiBatchPredictionClient(WebClient geminiWebClient, GeminiApiConfig geminiApiConfig) {
+        this.geminiWebClient = geminiWebClient;
+        this.geminiApiConfig = geminiApiConfig;
+    }
+
+    @Override
+    public Mono<String> submit(String displayName, Map<String, GeminiDtos.GeminiRequest> requests) {
+        List<Map<String, Object>> inlined = new ArrayList<>(requests.size());
+        requests.forEach((key, request) -> inlined.add(Map.of("request", request, "metadata", Map.of("key", key))));
+        Map<String, Object> body = Map.of("batch", Map.of(
+                "displayName", displayName,
+                "inputConfig", Map.of("requests", Map.of("requests", inlined))));
+
+        return geminiWebClient.post()
+                .uri(geminiApiConfig.getGeminiBaseUrl() + "/models/" + geminiApiConfig.getModel()
+                        + ":batchGenerateContent?key={key}", geminiApiConfig.getApiKey())
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(operation -> {
+                    String name = operation.path("metadata").path("name").asText(operation.path("name").asText());
+                    logger.info("Submitted batch prediction {} as {} with {} requests", displayName, name, requests.size());
+                    return name;
+                });
+    }
+
+    @Override
+    public Mono<BatchPredictionResult> poll(String batchName) {
+        return geminiWebClient.get()
+                .uri(geminiApiConfig.getGeminiBaseUrl() + "/" + batchName + "?key={key}", geminiApiConfig.getApiKey())
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(batch -> toResult(batchName, batch));
+    }
+
+    // The batch is returned as a long-running operation: state in metadata, results in response once done
+    private BatchPredictionResult toResult(String batchName, JsonNode batch) {
+        JsonNode metadata = batch.path("metadata");
+        BatchPredictionResult.State state = state(metadata.path("state").asText(batch.path("state").asText("")));
+        if (!state.equals(BatchPredictionResult.State.SUCCEEDED)) {
+            return BatchPredictionResult.inProgress(batchName, state);
+        }
+
+        JsonNode inlined = batch.path("response").path("inlinedResponses").path("inlinedResponses");
+        if (inlined.isMissingNode()) {
+            inlined = metadata.path("output").path("inlinedResponses").path("inlinedResponses");
+        }
+        Map<String, GeminiDtos.GeminiResponse> responses = new LinkedHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (JsonNode item : inlined) {
+            String key = item.path("metadata").path("key").asText(null);
+            if (key == null) {
+                continue;
+            }
+            if (item.has("error")) {
+                errors.put(key, item.path("error").path("message").asText("Unknown error"));
+                continue;
+            }
+            try {
+                responses.put(key, objectMapper.treeToValue(item.path("response"), GeminiDtos.GeminiResponse.class));
+            } catch (JsonProcessingException e) {
+                errors.put(key, "Unreadable response: " + e.getOriginalMessage());
+            }
+        }
+        return new BatchPredictionResult(batchName, state, responses, errors);
+    }
+
+    // BATCH_STATE_SUCCEEDED, JOB_STATE_SUCCEEDED, ...
+    private static BatchPredictionResult.State state(String value) {
+        String upper = value.toUpperCase(Locale.ROOT);
+        for (BatchPredictionResult.State state : BatchPredictionResult.State.values()) {
+            if (upper.endsWith("_" + state.name()) || upper.equals(state.name())) {
+                return state;
+            }
+        }
+        return BatchPredictionResult.State.PENDING;
+    }
+}
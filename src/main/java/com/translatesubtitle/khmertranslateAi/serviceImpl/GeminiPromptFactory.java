@@ -0,0 +1,152 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.translatesubtitle.khmertranslateAi.dto.GeminiDtos;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Builds Gemini request payloads for subtitle batches.
+ * <p>
+ * The translation rules and format example are identical for every batch, so they live in a
+ * {@code systemInstruction} that is formatted once per target language and reused. The per-batch
+ * user content only carries the line count and the subtitle lines themselves. When
+ * {@code gemini.api.cached-content-enabled} is set, the system instruction is registered once via
+ * the cachedContents API and referenced by name; if registration fails (e.g. the prefix is below
+ * the model's minimum cacheable size) the inline system instruction is used instead.
+ */
+@Component
+public class GeminiPromptFactory {
+    private static final Logger logger = LoggerFactory.getLogger(GeminiPromptFactory.class);
+
+    private static final String SYSTEM_INSTRUCTION_TEMPLATE =
+            "You translate subtitle lines to %1$s.\n"
+            + "IMPORTANT RULES:\n"
+            + "1. Do NOT translate proper names (person names, locations, brands, etc.) — keep them in English.\n"
+            + "2. If a line is unclear or difficult to translate, use the original English text.\n"
+            + "3. NEVER leave empty translations - always provide something for each line.\n"
+            + "4. Provide ONLY the translated text for each line, separated by '|||'.\n"
+            + "5. Do NOT add any extra text, explanations, or numbering before or after the translations.\n"
+            + "6. Maintain the exact same order as the input.\n\n"
+            + "FORMAT EXAMPLE:\n"
+            + "Input: 1. \"Hello there\" 2. \"How are you?\"\n"
+            + "Output for %1$s: \"[Hello translation]|||[How are you translation]\"\n";
+
+    private static final String MULTI_LANGUAGE_INSTRUCTION_TEMPLATE =
+            "You translate subtitle lines into each of these languages: %1$s.\n"
+            + "IMPORTANT RULES:\n"
+            + "1. Do NOT translate proper names (person names, locations, brands, etc.) — keep them in English.\n"
+            + "2. If a line is unclear or difficult to translate, use the original English text.\n"
+            + "3. NEVER leave empty translations - always provide something for each line.\n"
+            + "4. Answer with a JSON object that has one key per language, named exactly as listed above.\n"
+            + "5. Each value is an array with exactly one translated string per input line, in the same order as the input.\n"
+            + "6. Do NOT add numbering, quotes or explanations inside the strings.\n";
+
+    // Refresh the cached prefix a little before the server-side TTL runs out
+    private static final Duration CACHE_REFRESH_MARGIN = Duration.ofMinutes(2);
+    private static final Duration CACHE_FAILURE_RETRY_AFTER = Duration.ofMinutes(10);
+
+    private final WebClient geminiWebClient;
+    private final GeminiApiConfig geminiApiConfig;
+
+    private final Map<String, GeminiDtos.Content> systemInstructions = new ConcurrentHashMap<>();
+    private final Map<String, Mono<String>> cachedContentNames = new ConcurrentHashMap<>();
+    private final Map<List<String>, GeminiDtos.Content> multiLanguageInstructions = new ConcurrentHashMap<>();
+
+    public GeminiPromptFactory(WebClient geminiWebClient, GeminiApiConfig geminiApiConfig) {
+        this.geminiWebClient = geminiWebClient;
+        this.geminiApiConfig = geminiApiConfig;
+    }
+
+    public Mono<GeminiDtos.GeminiRequest> buildRequest(List<SubtitleEntry> batch, String targetLanguage, String apiKey) {
+        GeminiDtos.GeminiRequest inlineRequest = buildInlineRequest(batch, targetLanguage);
+
+        if (!geminiApiConfig.isCachedContentEnabled()) {
+            return Mono.just(inlineRequest);
+        }
+        return cachedContentName(targetLanguage, apiKey)
+                .map(name -> new GeminiDtos.GeminiRequest(inlineRequest.contents(), null, name))
+                .onErrorResume(e -> Mono.empty())
+                .defaultIfEmpty(inlineRequest);
+    }
+
+    /**
+     * Single-language request that always carries the system instruction itself, for requests that
+     * may run after a cached-content reference has expired (batch prediction).
+     */
+    public GeminiDtos.GeminiRequest buildInlineRequest(List<SubtitleEntry> batch, String targetLanguage) {
+        List<GeminiDtos.Content> contents = List.of(new GeminiDtos.Content("user",
+                List.of(new GeminiDtos.TextPart(batchPrompt(batch, " translations separated by |||")))));
+        return new GeminiDtos.GeminiRequest(contents, systemInstruction(targetLanguage), null);
+    }
+
+    /**
+     * One request for several target languages; the response is a JSON object keyed by language.
+     */
+    public GeminiDtos.GeminiRequest buildMultiLanguageRequest(List<SubtitleEntry> batch, List<String> targetLanguages) {
+        List<GeminiDtos.Content> contents = List.of(new GeminiDtos.Content("user",
+                List.of(new GeminiDtos.TextPart(batchPrompt(batch, " translations for each language")))));
+        GeminiDtos.Content instruction = multiLanguageInstructions.computeIfAbsent(List.copyOf(targetLanguages),
+                languages -> new GeminiDtos.Content(null, List.of(new GeminiDtos.TextPart(
+                        String.format(MULTI_LANGUAGE_INSTRUCTION_TEMPLATE, String.join(", ", languages))))));
+        return new GeminiDtos.GeminiRequest(contents, instruction, null,
+                new GeminiDtos.GenerationConfig("application/json", multiLanguageSchema(targetLanguages)));
+    }
+
+    private static Map<String, Object> multiLanguageSchema(List<String> targetLanguages) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (String language : targetLanguages) {
+            properties.put(language, Map.of("type", "ARRAY", "items", Map.of("type", "STRING")));
+        }
+        return Map.of("type", "OBJECT", "properties", properties, "required", targetLanguages);
+    }
+
+    public GeminiDtos.Content systemInstruction(String targetLanguage) {
+        return systemInstructions.computeIfAbsent(targetLanguage, language -> new GeminiDtos.Content(null,
+                List.of(new GeminiDtos.TextPart(String.format(SYSTEM_INSTRUCTION_TEMPLATE, language)))));
+    }
+
+    private String batchPrompt(List<SubtitleEntry> batch, String answerFormat) {
+        StringBuilder prompt = new StringBuilder(64 + batch.size() * 48);
+        prompt.append("Translate the following ").append(batch.size()).append(" subtitle lines. ")
+                .append("You must provide exactly ").append(batch.size()).append(answerFormat).append(".\n")
+                .append("Here are the lines to translate:\n");
+        for (int i = 0; i < batch.size(); i++) {
+            prompt.append(i + 1).append(". \"").append(batch.get(i).getText()).append("\"\n");
+        }
+        return prompt.toString();
+    }
+
+    private Mono<String> cachedContentName(String targetLanguage, String apiKey) {
+        Duration ttl = Duration.ofSeconds(geminiApiConfig.getCachedContentTtlSeconds());
+        Duration reuseFor = ttl.compareTo(CACHE_REFRESH_MARGIN.multipliedBy(2)) > 0 ? ttl.minus(CACHE_REFRESH_MARGIN) : ttl.dividedBy(2);
+        return cachedContentNames.computeIfAbsent(targetLanguage, language -> createCachedContent(language, apiKey, ttl)
+                .cache(name -> reuseFor, error -> CACHE_FAILURE_RETRY_AFTER, () -> CACHE_FAILURE_RETRY_AFTER));
+    }
+
+    private Mono<String> createCachedContent(String targetLanguage, String apiKey, Duration ttl) {
+        GeminiDtos.CachedContentRequest request = new GeminiDtos.CachedContentRequest(
+                "models/" + geminiApiConfig.getModel(), systemInstruction(targetLanguage), ttl.toSeconds() + "s");
+
+        return geminiWebClient.post()
+                .uri(geminiApiConfig.getGeminiBaseUrl() + "/cachedContents?key={key}", apiKey)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(GeminiDtos.CachedContentResponse.class)
+                .map(GeminiDtos.CachedContentResponse::name)
+                .doOnNext(name -> logger.info("Registered cached system instruction for {} as {}", targetLanguage, name))
+                .doOnError(e -> logger.warn("Could not register cached system instruction for {}, sending it inline: {}",
+                        targetLanguage, e.getMessage()));
+    }
+}
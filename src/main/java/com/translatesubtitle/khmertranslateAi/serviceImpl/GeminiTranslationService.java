@@ -3,17 +3,26 @@ package com.translatesubtitle.khmertranslateAi.serviceImpl;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.translatesubtitle.khmertranslateAi.dto.GeminiDtos;
 import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
 // Assuming GeminiApiConfig will provide these new values
@@ -21,58 +30,159 @@ import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.context.Context;
 import reactor.util.retry.Retry;
 
 @Service
 public class GeminiTranslationService {
     private static final Logger logger = LoggerFactory.getLogger(GeminiTranslationService.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String CALL_GATE_KEY = GeminiTranslationService.class.getName() + ".callGate";
     private final WebClient geminiWebClient;
     private final GeminiApiConfig geminiApiConfig; // Make sure this class has the new properties
-
-    // Rate-limit friendly parameters - now instance variables initialized from config
-    private final int batchSize;
-    private final int concurrentRequests;
-    private final int maxRetries;
-    private final Duration initialBackoff;
-    private final Duration maxRateLimitBackoff; // Max backoff for the retry policy
-    private final long delayBetweenBatchRequestMs;
-
-    public GeminiTranslationService(WebClient geminiWebClient, GeminiApiConfig geminiApiConfig) {
+    private final GeminiPromptFactory promptFactory;
+    private final TokenUsageService tokenUsage;
+    private final TranslationVerifier verifier;
+    // Prompt building and response parsing run here, never on the Netty event loop
+    private final Scheduler cpuScheduler;
+    // Batches run concurrently but leave in input order, so output files stay in cue order
+    private final BatchReorderBuffer reorderBuffer;
+    private final ModelRouter router;
+
+    // Only every n-th raw response is logged (truncated); the rest are summarized by length
+    @Value("${gemini.log.raw-response-sample-rate:20}")
+    private int rawResponseSampleRate = 20;
+    @Value("${gemini.log.raw-response-max-chars:500}")
+    private int rawResponseMaxChars = 500;
+    private final AtomicLong rawResponseLogCount = new AtomicLong();
+
+    public GeminiTranslationService(WebClient geminiWebClient, GeminiApiConfig geminiApiConfig,
+            GeminiPromptFactory promptFactory, TokenUsageService tokenUsage, TranslationVerifier verifier,
+            Scheduler geminiCpuScheduler, BatchReorderBuffer reorderBuffer, ModelRouter router) {
         this.geminiWebClient = geminiWebClient;
         this.geminiApiConfig = geminiApiConfig;
+        this.promptFactory = promptFactory;
+        this.tokenUsage = tokenUsage;
+        this.verifier = verifier;
+        this.cpuScheduler = geminiCpuScheduler;
+        this.reorderBuffer = reorderBuffer;
+        this.router = router;
+    }
 
-        // Initialize from GeminiApiConfig
-        // Ensure GeminiApiConfig has methods like getBatchSize(), getConcurrentRequests(), etc.
-        // Add sensible defaults here or ensure they are always set in config
-        this.batchSize = geminiApiConfig.getBatchSize(); // e.g., 5
-        this.concurrentRequests = geminiApiConfig.getConcurrentRequests(); // e.g., 2
-        this.maxRetries = geminiApiConfig.getMaxRetries(); // e.g., 4
-        this.initialBackoff = Duration.ofSeconds(geminiApiConfig.getInitialBackoffSeconds()); // e.g., 2
-        this.maxRateLimitBackoff = Duration.ofSeconds(geminiApiConfig.getMaxRateLimitBackoffSeconds()); // e.g., 60
-        this.delayBetweenBatchRequestMs = geminiApiConfig.getDelayBetweenBatchRequestMs(); // e.g., 500
+    /**
+     * Context for pipelines that one caller runs side by side, e.g. several files at once: all their
+     * Gemini calls share {@code limit} requests in flight, instead of each pipeline sending its own
+     * {@code concurrent-requests}. Write it on the subscriber that merges the pipelines.
+     */
+    public static Context sharedCallLimit(IntSupplier limit) {
+        return Context.of(CALL_GATE_KEY, new ConcurrencyGate(limit));
     }
 
     public Mono<List<SubtitleEntry>> translateSubtitles(List<SubtitleEntry> subtitleEntries, String targetLanguage) {
         if (subtitleEntries == null || subtitleEntries.isEmpty()) {
             return Mono.just(Collections.emptyList());
         }
+        return translateBatches(subtitleEntries, targetLanguage)
+                .collectList()
+                .map(this::flattenBatches)
+                .doOnSuccess(result -> logger.info("Translation completed. Processed {} entries.", result.size()))
+                .doOnError(error -> logger.error("Error during overall subtitle translation process: {}", error.getMessage(), error));
+    }
+
+    /**
+     * Translates the entries batch by batch, emitting each translated batch as soon as it and every
+     * batch before it are done, so callers can stream results to a writer in cue order instead of
+     * waiting for the whole file.
+     */
+    public Flux<List<SubtitleEntry>> translateBatches(List<SubtitleEntry> subtitleEntries, String targetLanguage) {
+        if (subtitleEntries == null || subtitleEntries.isEmpty()) {
+            return Flux.empty();
+        }
+        int batchSize = geminiApiConfig.getBatchSize();
+        logger.info("Processing {} subtitle entries in {} batches with batch size {} and concurrency level {}.",
+                subtitleEntries.size(), (subtitleEntries.size() + batchSize - 1) / batchSize, batchSize,
+                geminiApiConfig.getConcurrentRequests());
+        return translateEntryStream(Flux.fromIterable(subtitleEntries), targetLanguage);
+    }
 
+    /**
+     * Like {@link #translateBatches(List, String)} for entries that are still being produced, e.g. parsed
+     * from an upload in progress: a batch is dispatched as soon as {@code batchSize} entries have arrived.
+     * Batch size is read for every batch and concurrency when the pipeline starts, so runtime changes
+     * to {@link GeminiApiConfig} reach the next batch and the next file respectively.
+     */
+    public Flux<List<SubtitleEntry>> translateEntryStream(Flux<SubtitleEntry> entries, String targetLanguage) {
         String apiKey = geminiApiConfig.getApiKey();
         if (apiKey == null || apiKey.isEmpty()) {
             logger.error("Gemini API key is not configured. Please set 'gemini.api.key'.");
-            return Mono.just(subtitleEntries); // Return original entries
+            return batches(entries); // Return original entries
         }
 
-        List<List<SubtitleEntry>> batches = createBatches(subtitleEntries, this.batchSize);
-        logger.info("Processing {} subtitle entries in {} batches with batch size {} and concurrency level {}.",
-                subtitleEntries.size(), batches.size(), this.batchSize, this.concurrentRequests);
+        if (router.isEnabled()) {
+            return reorderBuffer.inOrder(batches(entries),
+                    window -> translateRouted(window, targetLanguage, apiKey), router.windowConcurrency());
+        }
+        return reorderBuffer.inOrder(batches(entries),
+                batch -> translateBatch(batch, targetLanguage, apiKey, null)
+                        .flatMap(translated -> verified(translated, targetLanguage, apiKey, 0, null)),
+                geminiApiConfig.getConcurrentRequests());
+    }
 
-        return Flux.fromIterable(batches)
-                .flatMap(batch -> translateBatch(batch, targetLanguage, apiKey), this.concurrentRequests)
-                .collectList()
-                .map(this::flattenBatches)
-                .doOnSuccess(result -> logger.info("Translation completed. Processed {} entries.", result.size()))
-                .doOnError(error -> logger.error("Error during overall subtitle translation process: {}", error.getMessage(), error));
+    /**
+     * Translates every batch into several languages with one structured (JSON) request per batch.
+     * Each emitted map holds the translated batch per language. Languages missing from a response,
+     * or with the wrong number of lines, are re-requested for that batch with the single-language prompt.
+     */
+    public Flux<Map<String, List<SubtitleEntry>>> translateBatchesMultiLanguage(List<SubtitleEntry> subtitleEntries,
+            List<String> targetLanguages) {
+        if (subtitleEntries == null || subtitleEntries.isEmpty()) {
+            return Flux.empty();
+        }
+        int batchSize = geminiApiConfig.getBatchSize();
+        logger.info("Processing {} subtitle entries into {} in {} multi-language batches with concurrency level {}.",
+                subtitleEntries.size(), targetLanguages, (subtitleEntries.size() + batchSize - 1) / batchSize,
+                geminiApiConfig.getConcurrentRequests());
+        return translateEntryStreamMultiLanguage(Flux.fromIterable(subtitleEntries), targetLanguages);
+    }
+
+    /**
+     * Multi-language counterpart of {@link #translateEntryStream(Flux, String)}.
+     */
+    public Flux<Map<String, List<SubtitleEntry>>> translateEntryStreamMultiLanguage(Flux<SubtitleEntry> entries,
+            List<String> targetLanguages) {
+        String apiKey = geminiApiConfig.getApiKey();
+        if (apiKey == null || apiKey.isEmpty()) {
+            logger.error("Gemini API key is not configured. Please set 'gemini.api.key'.");
+            return batches(entries).map(batch -> {
+                Map<String, List<SubtitleEntry>> untranslated = new LinkedHashMap<>();
+                targetLanguages.forEach(language -> untranslated.put(language, batch));
+                return untranslated;
+            });
+        }
+
+        return reorderBuffer.inOrder(batches(entries),
+                batch -> limited(Mono.delay(Duration.ofMillis(geminiApiConfig.getDelayBetweenBatchRequestMs()), cpuScheduler)
+                        .then(Mono.defer(() -> performMultiLanguageBatchTranslation(batch, targetLanguages, apiKey))))
+                        .flatMap(byLanguage -> Flux.fromIterable(byLanguage.entrySet())
+                                .concatMap(translated -> verified(translated.getValue(), translated.getKey(), apiKey, 0, null)
+                                        .map(checked -> Map.entry(translated.getKey(), checked)))
+                                .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new)),
+                geminiApiConfig.getConcurrentRequests());
+    }
+
+    // Like buffer(batchSize), but the size is read as each batch fills
+    private Flux<List<SubtitleEntry>> batches(Flux<SubtitleEntry> entries) {
+        return Flux.defer(() -> {
+            AtomicInteger filled = new AtomicInteger();
+            return entries.bufferUntil(entry -> {
+                if (filled.incrementAndGet() < geminiApiConfig.getBatchSize()) {
+                    return false;
+                }
+                filled.set(0);
+                return true;
+            });
+        });
     }
 
     private List<List<SubtitleEntry>> createBatches(List<SubtitleEntry> entries, int currentBatchSize) {
@@ -81,57 +191,251 @@ public class GeminiTranslationService {
                 .collect(Collectors.toList());
     }
 
-    private Mono<List<SubtitleEntry>> translateBatch(List<SubtitleEntry> batch, String targetLanguage, String apiKey) {
-        // Add small delay to avoid overwhelming the API
-        return Mono.delay(Duration.ofMillis(this.delayBetweenBatchRequestMs))
-                .then(performBatchTranslation(batch, targetLanguage, apiKey));
+    // model: a model name for tiered routing, or null for the gemini.api model
+    private Mono<List<SubtitleEntry>> translateBatch(List<SubtitleEntry> batch, String targetLanguage, String apiKey,
+            String model) {
+        // Add small delay to avoid overwhelming the API; the prompt is then built on the CPU scheduler
+        return limited(Mono.delay(Duration.ofMillis(geminiApiConfig.getDelayBetweenBatchRequestMs()), cpuScheduler)
+                .then(Mono.defer(() -> performBatchTranslation(batch, targetLanguage, apiKey, model))));
     }
 
-    private Mono<List<SubtitleEntry>> performBatchTranslation(List<SubtitleEntry> batch, String targetLanguage, String apiKey) {
-    	StringBuilder batchPrompt = new StringBuilder();
-    	batchPrompt.append(String.format("Translate the following %d subtitle lines to %s. ", batch.size(), targetLanguage));
-    	batchPrompt.append("IMPORTANT RULES:\n");
-    	batchPrompt.append("1. Do NOT translate proper names (person names, locations, brands, etc.) — keep them in English.\n");
-    	batchPrompt.append("2. If a line is unclear or difficult to translate, use the original English text.\n");
-    	batchPrompt.append("3. NEVER leave empty translations - always provide something for each line.\n");
-    	batchPrompt.append("4. Provide ONLY the translated text for each line, separated by '|||'.\n");
-    	batchPrompt.append("5. Do NOT add any extra text, explanations, or numbering before or after the translations.\n");
-    	batchPrompt.append("6. Maintain the exact same order as the input.\n\n");
-    	batchPrompt.append("FORMAT EXAMPLE:\n");
-    	batchPrompt.append("Input: 1. \"Hello there\" 2. \"How are you?\"\n");
-    	batchPrompt.append(String.format("Output for %s: \"[Hello translation]|||[How are you translation]\"\n\n", targetLanguage));
+    // Waits for the caller's shared limit, when one was written to the context with sharedCallLimit
+    private <T> Mono<T> limited(Mono<T> call) {
+        return Mono.deferContextual(context -> context.<ConcurrencyGate>getOrEmpty(CALL_GATE_KEY)
+                .map(gate -> gate.run(() -> call))
+                .orElse(call));
+    }
 
-    	batchPrompt.append(String.format("You must provide exactly %d translations separated by |||.\n", batch.size()));
-    	batchPrompt.append("Here are the lines to translate:\n");
+    /**
+     * Splits a window of entries by {@link ModelRouter} tier, translates each part in batches of its
+     * tier and merges the results back into cue order. Fast-tier lines that fail verification are
+     * escalated to the strong tier.
+     */
+    private Mono<List<SubtitleEntry>> translateRouted(List<SubtitleEntry> window, String targetLanguage, String apiKey) {
+        List<Integer> fast = new ArrayList<>();
+        List<Integer> strong = new ArrayList<>();
+        for (int i = 0; i < window.size(); i++) {
+            (router.classify(window.get(i)) == ModelRouter.Tier.FAST ? fast : strong).add(i);
+        }
+        router.countLines(ModelRouter.Tier.FAST, fast.size());
+        router.countLines(ModelRouter.Tier.STRONG, strong.size());
+
+        Mono<List<SubtitleEntry>> fastPart = translateTier(pick(window, fast), ModelRouter.Tier.FAST, targetLanguage, apiKey)
+                .flatMap(translated -> escalated(translated, targetLanguage, apiKey));
+        Mono<List<SubtitleEntry>> strongPart = translateTier(pick(window, strong), ModelRouter.Tier.STRONG, targetLanguage, apiKey)
+                .flatMap(translated -> verified(translated, targetLanguage, apiKey, 0, ModelRouter.Tier.STRONG));
+        return Mono.zip(fastPart, strongPart).map(parts -> {
+            List<SubtitleEntry> merged = new ArrayList<>(window);
+            for (int i = 0; i < fast.size() && i < parts.getT1().size(); i++) {
+                merged.set(fast.get(i), parts.getT1().get(i));
+            }
+            for (int i = 0; i < strong.size() && i < parts.getT2().size(); i++) {
+                merged.set(strong.get(i), parts.getT2().get(i));
+            }
+            return merged;
+        });
+    }
 
-        for (int i = 0; i < batch.size(); i++) {
-            batchPrompt.append(String.format("%d. \"%s\"\n", i + 1, batch.get(i).getText()));
+    private Mono<List<SubtitleEntry>> translateTier(List<SubtitleEntry> entries, ModelRouter.Tier tier, String targetLanguage,
+            String apiKey) {
+        if (entries.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return Flux.fromIterable(createBatches(entries, router.batchSize(tier)))
+                .flatMapSequential(batch -> router.gate(tier)
+                        .run(() -> translateBatch(batch, targetLanguage, apiKey, router.model(tier))))
+                .collectList()
+                .map(this::flattenBatches);
+    }
+
+    // Re-translates the fast-tier lines that fail verification with the strong tier, which verifies and retries as usual
+    private Mono<List<SubtitleEntry>> escalated(List<SubtitleEntry> translated, String targetLanguage, String apiKey) {
+        if (!verifier.isEnabled() || translated.isEmpty()) {
+            return Mono.just(translated);
+        }
+        List<Integer> failing = verifier.failingLines(translated, targetLanguage);
+        if (failing.isEmpty()) {
+            return Mono.just(translated);
         }
+        router.countEscalations(failing.size());
+        logger.info("Escalating {} fast-tier lines that failed verification for {} to the strong tier.",
+                failing.size(), targetLanguage);
+        return translateTier(sources(translated, failing), ModelRouter.Tier.STRONG, targetLanguage, apiKey)
+                .flatMap(retried -> verified(retried, targetLanguage, apiKey, 0, ModelRouter.Tier.STRONG))
+                .map(retried -> {
+                    List<SubtitleEntry> merged = new ArrayList<>(translated);
+                    for (int i = 0; i < failing.size() && i < retried.size(); i++) {
+                        merged.set(failing.get(i), retried.get(i));
+                    }
+                    return merged;
+                });
+    }
 
-        GeminiDtos.TextPart textPart = new GeminiDtos.TextPart(batchPrompt.toString());
-        GeminiDtos.Content content = new GeminiDtos.Content("user", List.of(textPart));
-        GeminiDtos.GeminiRequest requestPayload = new GeminiDtos.GeminiRequest(List.of(content));
+    private static List<SubtitleEntry> pick(List<SubtitleEntry> entries, List<Integer> positions) {
+        List<SubtitleEntry> picked = new ArrayList<>(positions.size());
+        positions.forEach(position -> picked.add(entries.get(position)));
+        return picked;
+    }
 
+    // Fresh source copies of the given lines, without their (failed) translation
+    private static List<SubtitleEntry> sources(List<SubtitleEntry> translated, List<Integer> positions) {
+        List<SubtitleEntry> sources = new ArrayList<>(positions.size());
+        for (int index : positions) {
+            SubtitleEntry source = new SubtitleEntry(translated.get(index));
+            source.setTranslatedText(null);
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    /**
+     * Re-translates the lines of a batch that fail {@link TranslationVerifier} (markers, source
+     * copied unchanged, wrong script) as small micro-batches, up to the verifier's retry limit.
+     * A retried line replaces the original when it passes, or when it at least has no failure marker.
+     * With a {@code tier} (null without tiered routing), the retries use that tier's model and wait for
+     * its concurrency gate like first attempts.
+     */
+    private Mono<List<SubtitleEntry>> verified(List<SubtitleEntry> translated, String targetLanguage, String apiKey, int round,
+            ModelRouter.Tier tier) {
+        if (!verifier.isEnabled()) {
+            return Mono.just(translated);
+        }
+        List<Integer> failing = verifier.failingLines(translated, targetLanguage);
+        if (failing.isEmpty()) {
+            return Mono.just(translated);
+        }
+        if (round >= verifier.getMaxRetries()) {
+            logger.warn("{} lines (sequences {}...) still fail verification for {} after {} re-translation rounds.",
+                    failing.size(), translated.get(failing.get(0)).getSequence(), targetLanguage, round);
+            return Mono.just(translated);
+        }
+
+        List<SubtitleEntry> sources = sources(translated, failing);
+        logger.info("Re-translating {} lines that failed verification for {} (round {}/{}).",
+                failing.size(), targetLanguage, round + 1, verifier.getMaxRetries());
+
+        return Flux.fromIterable(createBatches(sources, verifier.getMicroBatchSize()))
+                .concatMap(micro -> tier == null ? translateBatch(micro, targetLanguage, apiKey, null)
+                        : router.gate(tier).run(() -> translateBatch(micro, targetLanguage, apiKey, router.model(tier))))
+                .collectList()
+                .map(this::flattenBatches)
+                .map(retried -> {
+                    List<SubtitleEntry> merged = new ArrayList<>(translated);
+                    for (int i = 0; i < failing.size() && i < retried.size(); i++) {
+                        SubtitleEntry candidate = retried.get(i);
+                        if (!verifier.fails(candidate, targetLanguage) || !isFailedTranslation(candidate)) {
+                            merged.set(failing.get(i), candidate);
+                        }
+                    }
+                    return merged;
+                })
+                .flatMap(merged -> verified(merged, targetLanguage, apiKey, round + 1, tier));
+    }
+
+    /**
+     * Runs a batch translated outside this service (by batch prediction) through the same
+     * verification and online micro-batch re-translation as the batches translated here.
+     */
+    Mono<List<SubtitleEntry>> verify(List<SubtitleEntry> translated, String targetLanguage) {
+        String apiKey = geminiApiConfig.getApiKey();
+        if (apiKey == null || apiKey.isEmpty()) {
+            return Mono.just(translated);
+        }
+        return verified(translated, targetLanguage, apiKey, 0, null);
+    }
+
+    private Mono<List<SubtitleEntry>> performBatchTranslation(List<SubtitleEntry> batch, String targetLanguage, String apiKey,
+            String model) {
         logger.info("Translating batch of {} entries (sequences {}-{})",
                 batch.size(), batch.get(0).getSequence(), batch.get(batch.size() - 1).getSequence());
 
-        return geminiWebClient.post()
-                .uri(uriBuilder -> uriBuilder.queryParam("key", apiKey).build())
-                .bodyValue(requestPayload)
-                .retrieve()
-                .bodyToMono(GeminiDtos.GeminiResponse.class)
-                .map(response -> processBatchResponse(response, batch))
-                .retryWhen(Retry.backoff(this.maxRetries, this.initialBackoff)
-                        .maxBackoff(this.maxRateLimitBackoff)
+        // Static rules travel as systemInstruction (or a cached-content reference); the user turn only carries the lines.
+        // Cached content belongs to the gemini.api model, so other tiers always send the instruction inline.
+        Mono<GeminiDtos.GeminiRequest> request = model == null ? promptFactory.buildRequest(batch, targetLanguage, apiKey)
+                : Mono.fromSupplier(() -> promptFactory.buildInlineRequest(batch, targetLanguage));
+        Mono<List<SubtitleEntry>> call = request
+                .flatMap(requestPayload -> postGenerateContent(requestPayload, apiKey, targetLanguage, batch.size(), model))
+                // Responses arrive on the Netty event loop; splitting and logging move off it
+                .publishOn(cpuScheduler)
+                .map(response -> processBatchResponse(response, batch));
+        return withRetries(call, batch)
+                .onErrorResume(WebClientResponseException.class, ex -> {
+                     logger.error("WebClientResponseException for batch (sequences {}-{}): {} - {}. Returning original batch.",
+                        batch.get(0).getSequence(), batch.get(batch.size() -1).getSequence(),
+                        ex.getStatusCode(), ex.getResponseBodyAsString());
+                     return Mono.just(markBatch(batch, " [API Error]"));
+                })
+                // Catch-all for other errors after retries; an exhausted token budget stops the job instead
+                .onErrorResume(ex -> !(ex instanceof TokenUsageService.TokenBudgetExceededException),
+                        ex -> Mono.just(markBatch(batch, " [Fallback Error]")));
+    }
+
+    private Mono<Map<String, List<SubtitleEntry>>> performMultiLanguageBatchTranslation(List<SubtitleEntry> batch,
+            List<String> targetLanguages, String apiKey) {
+        logger.info("Translating batch of {} entries (sequences {}-{}) into {}",
+                batch.size(), batch.get(0).getSequence(), batch.get(batch.size() - 1).getSequence(), targetLanguages);
+
+        GeminiDtos.GeminiRequest requestPayload = promptFactory.buildMultiLanguageRequest(batch, targetLanguages);
+        Mono<Map<String, List<SubtitleEntry>>> call = postGenerateContent(requestPayload, apiKey,
+                        String.join("+", targetLanguages), batch.size(), null)
+                .publishOn(cpuScheduler)
+                .map(response -> processMultiLanguageResponse(response, batch, targetLanguages));
+        return withRetries(call, batch)
+                .onErrorResume(ex -> !(ex instanceof TokenUsageService.TokenBudgetExceededException), ex -> {
+                    logger.error("Multi-language request for batch (sequences {}-{}) failed: {}. Falling back to one request per language.",
+                            batch.get(0).getSequence(), batch.get(batch.size() - 1).getSequence(), ex.getMessage());
+                    return Mono.just(new LinkedHashMap<String, List<SubtitleEntry>>());
+                })
+                .flatMap(parsed -> Flux.fromIterable(targetLanguages)
+                        .filter(language -> !parsed.containsKey(language))
+                        .concatMap(language -> performBatchTranslation(batch, language, apiKey, null)
+                                .map(translated -> Map.entry(language, translated)))
+                        .collectList()
+                        .map(fallbacks -> {
+                            Map<String, List<SubtitleEntry>> result = new LinkedHashMap<>();
+                            for (String language : targetLanguages) {
+                                List<SubtitleEntry> translated = parsed.get(language);
+                                if (translated != null) {
+                                    result.put(language, translated);
+                                }
+                            }
+                            fallbacks.forEach(fallback -> result.put(fallback.getKey(), fallback.getValue()));
+                            return result;
+                        }));
+    }
+
+    // Budget check and usage accounting run per attempt, with the job/file taken from the subscriber's context
+    private Mono<GeminiDtos.GeminiResponse> postGenerateContent(GeminiDtos.GeminiRequest requestPayload, String apiKey,
+            String language, int batchEntries, String model) {
+        return Mono.deferContextual(context -> {
+            tokenUsage.checkBudget(context);
+            WebClient.RequestBodySpec post = model == null
+                    ? geminiWebClient.post().uri(uriBuilder -> uriBuilder.queryParam("key", apiKey).build())
+                    : geminiWebClient.post().uri(geminiApiConfig.getGeminiBaseUrl() + "/models/" + model
+                            + ":generateContent?key={key}", apiKey);
+            return post
+                    .bodyValue(requestPayload)
+                    .retrieve()
+                    .bodyToMono(GeminiDtos.GeminiResponse.class)
+                    .doOnNext(response -> tokenUsage.record(context, language, apiKey, batchEntries, response.usageMetadata()));
+        });
+    }
+
+    // Retry settings are read per batch, so a runtime change applies to the next batch dispatched
+    private <T> Mono<T> withRetries(Mono<T> call, List<SubtitleEntry> batch) {
+        int maxRetries = geminiApiConfig.getMaxRetries();
+        Duration initialBackoff = Duration.ofSeconds(geminiApiConfig.getInitialBackoffSeconds());
+        return call.retryWhen(Retry.backoff(maxRetries, initialBackoff)
+                        .maxBackoff(Duration.ofSeconds(geminiApiConfig.getMaxRateLimitBackoffSeconds()))
                         .filter(this::isRetryableError)
                         .doBeforeRetry(retrySignal -> {
                             long attempt = retrySignal.totalRetries() + 1;
                             // Use failure from retrySignal to determine specific backoff
-                            Duration waitTime = getBackoffDuration(retrySignal.failure(), attempt, this.initialBackoff);
+                            Duration waitTime = getBackoffDuration(retrySignal.failure(), attempt, initialBackoff);
                             logger.warn("Retrying batch (sequences {}-{}) attempt {}/{} after {}ms. Reason: {}",
                                     batch.get(0).getSequence(),
                                     batch.get(batch.size() - 1).getSequence(),
-                                    attempt, this.maxRetries,
+                                    attempt, maxRetries,
                                     waitTime.toMillis(),
                                     retrySignal.failure().getMessage());
                         })
@@ -139,24 +443,78 @@ public class GeminiTranslationService {
                             logger.error("Failed to translate batch (sequences {}-{}) after {} retries. Last error: {}",
                                  batch.get(0).getSequence(),
                                  batch.get(batch.size() - 1).getSequence(),
-                                 this.maxRetries,
+                                 maxRetries,
                                  retrySignal.failure().getMessage());
                             return retrySignal.failure(); // Propagate the last error
-                        }))
-                .onErrorResume(WebClientResponseException.class, ex -> {
-                     logger.error("WebClientResponseException for batch (sequences {}-{}): {} - {}. Returning original batch.",
-                        batch.get(0).getSequence(), batch.get(batch.size() -1).getSequence(),
-                        ex.getStatusCode(), ex.getResponseBodyAsString());
-                     return Mono.just(batch.stream().peek(entry -> entry.setTranslatedText(entry.getText() + " [API Error]")).collect(Collectors.toList()));
-                })
-                .onErrorReturn(Exception.class, batch.stream().peek(entry -> entry.setTranslatedText(entry.getText() + " [Fallback Error]")).collect(Collectors.toList())); // Catch-all for other errors after retries
+                        }));
+    }
+
+    // Copies, so that a failure in one language never leaks into the shared source entries
+    List<SubtitleEntry> markBatch(List<SubtitleEntry> batch, String marker) {
+        List<SubtitleEntry> marked = new ArrayList<>(batch.size());
+        for (SubtitleEntry original : batch) {
+            SubtitleEntry entry = new SubtitleEntry(original);
+            entry.setTranslatedText(original.getText() + marker);
+            marked.add(entry);
+        }
+        return marked;
+    }
+
+    private Map<String, List<SubtitleEntry>> processMultiLanguageResponse(GeminiDtos.GeminiResponse response,
+            List<SubtitleEntry> originalBatch, List<String> targetLanguages) {
+        Map<String, List<SubtitleEntry>> result = new LinkedHashMap<>();
+        String json = firstCandidateText(response);
+        if (json == null) {
+            logger.warn("Empty multi-language response for batch (sequences {}-{}).",
+                    originalBatch.get(0).getSequence(), originalBatch.get(originalBatch.size() - 1).getSequence());
+            return result;
+        }
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            logger.warn("Multi-language response for batch (sequences {}-{}) is not valid JSON: {}",
+                    originalBatch.get(0).getSequence(), originalBatch.get(originalBatch.size() - 1).getSequence(), e.getOriginalMessage());
+            return result;
+        }
+
+        for (String language : targetLanguages) {
+            JsonNode lines = root.get(language);
+            if (lines == null || !lines.isArray() || lines.size() != originalBatch.size()) {
+                logger.warn("Multi-language response for batch (sequences {}-{}) has no usable {} translations.",
+                        originalBatch.get(0).getSequence(), originalBatch.get(originalBatch.size() - 1).getSequence(), language);
+                continue;
+            }
+            List<SubtitleEntry> translated = new ArrayList<>(originalBatch.size());
+            for (int i = 0; i < originalBatch.size(); i++) {
+                SubtitleEntry entry = new SubtitleEntry(originalBatch.get(i));
+                String translation = lines.get(i).asText("").trim();
+                entry.setTranslatedText(translation.isEmpty() ? entry.getText() + " [Empty Translation]" : translation);
+                translated.add(entry);
+            }
+            result.put(language, translated);
+        }
+        return result;
     }
 
-    private List<SubtitleEntry> processBatchResponse(GeminiDtos.GeminiResponse response, List<SubtitleEntry> originalBatch) {
+    private static String firstCandidateText(GeminiDtos.GeminiResponse response) {
+        if (response == null || response.candidates() == null || response.candidates().isEmpty()) {
+            return null;
+        }
+        GeminiDtos.Candidate candidate = response.candidates().get(0);
+        if (candidate.content() == null || candidate.content().parts() == null || candidate.content().parts().isEmpty()) {
+            return null;
+        }
+        return candidate.content().parts().get(0).text();
+    }
+
+    // Also maps the results of BulkTranslationService's batch predictions
+    List<SubtitleEntry> processBatchResponse(GeminiDtos.GeminiResponse response, List<SubtitleEntry> originalBatch) {
         if (response == null || response.candidates() == null || response.candidates().isEmpty()) {
             logger.warn("Empty or null response candidates for batch (sequences {}-{}). Using original text.",
                         originalBatch.get(0).getSequence(), originalBatch.get(originalBatch.size()-1).getSequence());
-            return originalBatch.stream().peek(entry -> entry.setTranslatedText(entry.getText() + " [Empty Response]")).collect(Collectors.toList());
+            return markBatch(originalBatch, " [Empty Response]");
         }
 
         GeminiDtos.Candidate firstCandidate = response.candidates().get(0);
@@ -164,26 +522,21 @@ public class GeminiTranslationService {
                 || firstCandidate.content().parts().isEmpty() || firstCandidate.content().parts().get(0).text() == null) {
             logger.warn("Malformed response content/parts for batch (sequences {}-{}). Using original text.",
                         originalBatch.get(0).getSequence(), originalBatch.get(originalBatch.size()-1).getSequence());
-            return originalBatch.stream().peek(entry -> entry.setTranslatedText(entry.getText() + " [Malformed Response]")).collect(Collectors.toList());
+            return markBatch(originalBatch, " [Malformed Response]");
         }
 
         String translatedText = firstCandidate.content().parts().get(0).text().trim();
 
         String[] translations = null;
         if (translatedText.contains("|||")) {
-            // Split by ||| but preserve empty strings to maintain count
-            translations = translatedText.split("\\|\\|\\|", -1); // -1 preserves empty strings
-            
-            // Trim each translation but keep empty ones as empty strings
-            for (int i = 0; i < translations.length; i++) {
-                translations[i] = translations[i].trim();
-            }
+            // Split by ||| but preserve empty strings to maintain count; each part is trimmed
+            translations = splitTranslations(translatedText);
             
             logger.debug("Split translations by |||: Found {} parts for batch size {}", translations.length, originalBatch.size());
         } else {
             // Fallback: split by newlines and clean up
             logger.warn("Response for batch (sequences {}-{}) did not contain '|||' separator. Falling back to newline splitting. Raw response: '{}'",
-                        originalBatch.get(0).getSequence(), originalBatch.get(originalBatch.size()-1).getSequence(), translatedText);
+                        originalBatch.get(0).getSequence(), originalBatch.get(originalBatch.size()-1).getSequence(), rawForLog(translatedText));
             translations = translatedText.split("\n");
             translations = cleanupTranslations(translations);
         }
@@ -191,7 +544,7 @@ public class GeminiTranslationService {
         if (translations.length != originalBatch.size()) {
             logger.warn("Translation count mismatch for batch (sequences {}-{}). Expected {}, got {}. Raw response: '{}'. Falling back to individual error marking.",
                     originalBatch.get(0).getSequence(), originalBatch.get(originalBatch.size()-1).getSequence(),
-                    originalBatch.size(), translations.length, translatedText);
+                    originalBatch.size(), translations.length, rawForLog(translatedText));
             return fallbackToIndividualTranslationWithErrorMarking(originalBatch, translations, translatedText);
         }
 
@@ -199,7 +552,7 @@ public class GeminiTranslationService {
         for (int i = 0; i < originalBatch.size(); i++) {
             SubtitleEntry entry = new SubtitleEntry(originalBatch.get(i)); // Create a new entry or clone
             String translation = translations[i].trim();
-            translation = translation.replaceFirst("^\\d+\\.\\s*", ""); // Remove potential numbering
+            translation = stripNumbering(translation); // Remove potential numbering
 
             if (translation.isEmpty()) {
                  logger.warn("Empty translation for entry sequence {} in batch {}-{} after parsing. Original: '{}'. Using original with marker.",
@@ -216,7 +569,7 @@ public class GeminiTranslationService {
     // Modified fallback to be more informative
     private List<SubtitleEntry> fallbackToIndividualTranslationWithErrorMarking(List<SubtitleEntry> batch, String[] parsedTranslations, String fullResponse) {
         logger.warn("Executing fallback translation for batch (sequences {}-{}) due to parsing issues. Full response: '{}'", 
-                    batch.get(0).getSequence(), batch.get(batch.size() - 1).getSequence(), fullResponse);
+                    batch.get(0).getSequence(), batch.get(batch.size() - 1).getSequence(), rawForLog(fullResponse));
         
         List<SubtitleEntry> result = new ArrayList<>();
         for (int i = 0; i < batch.size(); i++) {
@@ -224,7 +577,7 @@ public class GeminiTranslationService {
             
             if (i < parsedTranslations.length) {
                 String translation = parsedTranslations[i] != null ? parsedTranslations[i].trim() : "";
-                translation = translation.replaceFirst("^\\d+\\.\\s*", ""); // Remove potential numbering
+                translation = stripNumbering(translation); // Remove potential numbering
                 
                 if (!translation.isEmpty()) {
                     entry.setTranslatedText(translation);
@@ -248,13 +601,66 @@ public class GeminiTranslationService {
         for (String translation : translations) {
             String clean = translation.trim();
             // Skip empty lines and lines that are just numbers like "1.", "2."
-            if (!clean.isEmpty() && !clean.matches("^\\d+\\.$")) {
+            if (!clean.isEmpty() && !isBareNumbering(clean)) {
                 cleaned.add(clean);
             }
         }
         return cleaned.toArray(new String[0]);
     }
 
+    /**
+     * Splits on the "|||" separator without a regex, keeping empty parts so the count stays
+     * comparable with the batch size; every part is trimmed.
+     */
+    static String[] splitTranslations(String text) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int separator;
+        while ((separator = text.indexOf("|||", start)) >= 0) {
+            parts.add(text.substring(start, separator).trim());
+            start = separator + 3;
+        }
+        parts.add(text.substring(start).trim());
+        return parts.toArray(new String[0]);
+    }
+
+    // Removes a leading "12." (and the whitespace after it) that the model sometimes echoes
+    static String stripNumbering(String translation) {
+        int i = 0;
+        while (i < translation.length() && isAsciiDigit(translation.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i >= translation.length() || translation.charAt(i) != '.') {
+            return translation;
+        }
+        i++;
+        while (i < translation.length() && Character.isWhitespace(translation.charAt(i))) {
+            i++;
+        }
+        return translation.substring(i);
+    }
+
+    private static boolean isBareNumbering(String line) {
+        return line.length() > 1 && line.charAt(line.length() - 1) == '.'
+                && line.chars().limit(line.length() - 1).allMatch(c -> isAsciiDigit((char) c));
+    }
+
+    // Only ASCII digits, like the regex \d it replaces: Khmer/Thai/Lao numerals are real content
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private String rawForLog(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        long n = rawResponseLogCount.getAndIncrement();
+        if (rawResponseSampleRate <= 0 || n % rawResponseSampleRate != 0) {
+            return "<" + raw.length() + " chars, not sampled>";
+        }
+        return raw.length() <= rawResponseMaxChars ? raw : raw.substring(0, rawResponseMaxChars) + "... (" + raw.length() + " chars)";
+    }
+
     // Fallback used by older logic - replaced by fallbackToIndividualTranslationWithErrorMarking
     // private List<SubtitleEntry> fallbackToIndividualTranslation(List<SubtitleEntry> batch, String fullResponse) {
     //     // ... (original implementation, can be removed if the new one is preferred)
@@ -298,6 +704,23 @@ public class GeminiTranslationService {
         return defaultInitialBackoff;
     }
 
+    // Markers appended to the original text when a line could not be translated
+    private static final List<String> FAILURE_MARKERS = List.of("[API Error]", "[Fallback Error]", "[Empty Response]",
+            "[Malformed Response]", "[Empty Translation]", "[Empty in Fallback]", "[No Translation in Fallback]");
+
+    public static boolean isFailedTranslation(SubtitleEntry entry) {
+        String translated = entry.getTranslatedText();
+        if (translated == null) {
+            return true;
+        }
+        for (String marker : FAILURE_MARKERS) {
+            if (translated.endsWith(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private List<SubtitleEntry> flattenBatches(List<List<SubtitleEntry>> processedBatches) {
         return processedBatches.stream()
                 .flatMap(List::stream)
@@ -0,0 +1,131 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Re-translates a revised subtitle file against the translations of a previous version.
+ * <p>
+ * Cues are matched by normalized source text: a cue whose text already has a translation reuses
+ * it and takes its timing from the new file, so retimed cues cost nothing. Only changed or new
+ * text is sent to {@link GeminiTranslationService}, and each distinct text is translated once,
+ * through the same verification and re-translation as a full translation. A changed line that
+ * still comes back without a translation keeps its source text with a failure marker, like a
+ * failed batch, so it is never mistaken for a translation and the result is not cached.
+ */
+@Service
+public class IncrementalTranslationService {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalTranslationService.class);
+
+    private final GeminiTranslationService translationService;
+
+    public IncrementalTranslationService(GeminiTranslationService translationService) {
+        this.translationService = translationService;
+    }
+
+    /**
+     * Builds the text -> translation memory from translated entries of a previous job.
+     */
+    public Map<String, String> translationMemory(Collection<List<SubtitleEntry>> previousTranslatedFiles) {
+        Map<String, String> memory = new HashMap<>();
+        for (List<SubtitleEntry> file : previousTranslatedFiles) {
+            for (SubtitleEntry entry : file) {
+                if (!GeminiTranslationService.isFailedTranslation(entry)) {
+                    memory.putIfAbsent(normalize(entry.getText()), entry.getTranslatedText());
+                }
+            }
+        }
+        return memory;
+    }
+
+    /**
+     * Builds the text -> translation memory from a previous source SRT and its translated output SRT,
+     * pairing cues by sequence number.
+     */
+    public Map<String, String> translationMemory(List<SubtitleEntry> previousSource, List<SubtitleEntry> previousOutput) {
+        Map<Integer, String> outputBySequence = new HashMap<>();
+        for (SubtitleEntry entry : previousOutput) {
+            outputBySequence.putIfAbsent(entry.getSequence(), entry.getText());
+        }
+        Map<String, String> memory = new HashMap<>();
+        for (SubtitleEntry entry : previousSource) {
+            String translation = outputBySequence.get(entry.getSequence());
+            if (translation != null && !translation.isBlank()) {
+                SubtitleEntry candidate = new SubtitleEntry(entry);
+                candidate.setTranslatedText(translation);
+                if (!GeminiTranslationService.isFailedTranslation(candidate)) {
+                    memory.putIfAbsent(normalize(entry.getText()), translation);
+                }
+            }
+        }
+        return memory;
+    }
+
+    public Mono<List<SubtitleEntry>> retranslate(List<SubtitleEntry> current, Map<String, String> memory, String targetLanguage) {
+        List<SubtitleEntry> result = new ArrayList<>(current.size());
+        // One representative entry per distinct changed text, in file order
+        Map<String, SubtitleEntry> pendingByText = new LinkedHashMap<>();
+
+        for (SubtitleEntry entry : current) {
+            SubtitleEntry copy = new SubtitleEntry(entry);
+            String key = normalize(entry.getText());
+            String reused = memory.get(key);
+            if (reused != null) {
+                copy.setTranslatedText(reused);
+            } else {
+                pendingByText.putIfAbsent(key, copy);
+            }
+            result.add(copy);
+        }
+
+        logger.info("Incremental translation: {} of {} cues reused, {} distinct changed lines to translate.",
+                current.size() - countPending(result), current.size(), pendingByText.size());
+        if (pendingByText.isEmpty()) {
+            return Mono.just(result);
+        }
+
+        List<SubtitleEntry> pending = new ArrayList<>(pendingByText.values());
+        return translationService.translateSubtitles(pending, targetLanguage)
+                .map(translated -> {
+                    Map<String, String> fresh = new HashMap<>();
+                    for (SubtitleEntry entry : translated) {
+                        if (entry.getTranslatedText() != null) {
+                            fresh.putIfAbsent(normalize(entry.getText()), entry.getTranslatedText());
+                        }
+                    }
+                    for (SubtitleEntry entry : result) {
+                        if (entry.getTranslatedText() == null) {
+                            String translation = fresh.get(normalize(entry.getText()));
+                            entry.setTranslatedText(translation != null ? translation : entry.getText() + " [Empty Translation]");
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    private static int countPending(List<SubtitleEntry> result) {
+        int pending = 0;
+        for (SubtitleEntry entry : result) {
+            if (entry.getTranslatedText() == null) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.replace("\r\n", "\n").strip();
+    }
+}
@@ -0,0 +1,76 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.translatesubtitle.khmertranslateAi.dto.BatchPredictionResult;
+import com.translatesubtitle.khmertranslateAi.dto.GeminiDtos;
+import com.translatesubtitle.khmertranslateAi.service.BatchPredictionClient;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * In-process stand-in for the batch prediction API ({@code translation.bulk.client=local}), for tests
+ * and for running bulk jobs without a Gemini key. A batch is reported running on its first poll and
+ * answered on the next one; by default every numbered line of a prompt is "translated" to itself.
+ */
+@Component
+@ConditionalOnProperty(name = "translation.bulk.client", havingValue = "local")
+public class LocalBatchPredictionClient implements BatchPredictionClient {
+
+    private final Function<GeminiDtos.GeminiRequest, GeminiDtos.GeminiResponse> responder;
+    private final Map<String, Map<String, GeminiDtos.GeminiRequest>> batches = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> polled = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LocalBatchPredictionClient() {
+        this(LocalBatchPredictionClient::echo);
+    }
+
+    public LocalBatchPredictionClient(Function<GeminiDtos.GeminiRequest, GeminiDtos.GeminiResponse> responder) {
+        this.responder = responder;
+    }
+
+    @Override
+    public Mono<String> submit(String displayName, Map<String, GeminiDtos.GeminiRequest> requests) {
+        String name = "batches/local-" + UUID.randomUUID();
+        batches.put(name, new LinkedHashMap<>(requests));
+        return Mono.just(name);
+    }
+
+    @Override
+    public Mono<BatchPredictionResult> poll(String batchName) {
+        Map<String, GeminiDtos.GeminiRequest> requests = batches.get(batchName);
+        if (requests == null) {
+            return Mono.error(new IllegalArgumentException("Unknown batch " + batchName));
+        }
+        if (polled.put(batchName, Boolean.TRUE) == null) {
+            return Mono.just(BatchPredictionResult.inProgress(batchName, BatchPredictionResult.State.RUNNING));
+        }
+        Map<String, GeminiDtos.GeminiResponse> responses = new LinkedHashMap<>();
+        requests.forEach((key, request) -> responses.put(key, responder.apply(request)));
+        return Mono.just(new BatchPredictionResult(batchName, BatchPredictionResult.State.SUCCEEDED, responses, Map.of()));
+    }
+
+    // Answers with the quoted lines of the prompt (1. "..."), separated by ||| like a real translation
+    static GeminiDtos.GeminiResponse echo(GeminiDtos.GeminiRequest request) {
+        List<String> lines = new ArrayList<>();
+        for (String line : request.contents().get(0).parts().get(0).text().split("\n")) {
+            int quote = line.indexOf(". \"");
+            if (quote > 0 && line.endsWith("\"")) {
+                lines.add(line.substring(quote + 3, line.length() - 1));
+            }
+        }
+        GeminiDtos.Content content = new GeminiDtos.Content("model", List.of(new GeminiDtos.TextPart(String.join(" ||| ", lines))));
+        return new GeminiDtos.GeminiResponse(List.of(new GeminiDtos.Candidate(content, "STOP", 0, List.of())), null, null);
+    }
+}
@@ -0,0 +1,152 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Routes subtitle lines to a fast (lite) or a strong Gemini model by difficulty, using only cheap
+ * local features of the source text: short lines ("OK.", "Thank you, John.") are easy; lines with
+ * many words or a high share of long words (dense, idiomatic or technical speech) are hard.
+ * Lines served from the translation cache or an earlier version never get here.
+ * <p>
+ * Each tier has its own model, batch size and node-wide concurrency. Fast-tier lines that fail
+ * {@link TranslationVerifier} are escalated to the strong tier. Disabled by default
+ * ({@code gemini.tiers.enabled}), in which case every line goes to {@code gemini.api} settings.
+ * A strong tier without its own batch size or concurrency follows the live {@code gemini.api} values.
+ */
+@Component
+public class ModelRouter {
+
+    public enum Tier {
+        FAST, STRONG
+    }
+
+    private final boolean enabled;
+    private final String fastModel;
+    private final String strongModel;
+    private final int fastBatchSize;
+    private final int strongBatchSize; // 0 = gemini.api batch-size
+    private final int fastConcurrency;
+    private final int strongConcurrency; // 0 = gemini.api concurrent-requests
+    private final int easyMaxLetters;
+    private final int hardMinWords;
+    private final double hardLongWordRatio;
+    private final int longWordLetters;
+    private final ConcurrencyGate fastGate;
+    private final ConcurrencyGate strongGate;
+    private final MeterRegistry meterRegistry;
+    private final GeminiApiConfig geminiApiConfig;
+
+    public ModelRouter(GeminiApiConfig geminiApiConfig, MeterRegistry meterRegistry,
+            @Value("${gemini.tiers.enabled:false}") boolean enabled,
+            @Value("${gemini.tiers.fast.model:gemini-2.5-flash-lite}") String fastModel,
+            @Value("${gemini.tiers.fast.batch-size:100}") int fastBatchSize,
+            @Value("${gemini.tiers.fast.concurrent-requests:4}") int fastConcurrency,
+            // Empty or 0 = the gemini.api model, batch size and concurrency
+            @Value("${gemini.tiers.strong.model:}") String strongModel,
+            @Value("${gemini.tiers.strong.batch-size:0}") int strongBatchSize,
+            @Value("${gemini.tiers.strong.concurrent-requests:0}") int strongConcurrency,
+            @Value("${gemini.tiers.easy-max-letters:40}") int easyMaxLetters,
+            @Value("${gemini.tiers.hard-min-words:14}") int hardMinWords,
+            @Value("${gemini.tiers.hard-long-word-ratio:0.3}") double hardLongWordRatio,
+            @Value("${gemini.tiers.long-word-letters:9}") int longWordLetters) {
+        this.enabled = enabled;
+        this.fastModel = fastModel;
+        this.strongModel = strongModel.isBlank() ? null : strongModel;
+        this.fastBatchSize = Math.max(1, fastBatchSize);
+        this.strongBatchSize = Math.max(0, strongBatchSize);
+        this.fastConcurrency = Math.max(1, fastConcurrency);
+        this.strongConcurrency = Math.max(0, strongConcurrency);
+        this.easyMaxLetters = easyMaxLetters;
+        this.hardMinWords = hardMinWords;
+        this.hardLongWordRatio = hardLongWordRatio;
+        this.longWordLetters = longWordLetters;
+        this.fastGate = new ConcurrencyGate(this.fastConcurrency);
+        this.strongGate = new ConcurrencyGate(this::strongConcurrency);
+        this.meterRegistry = meterRegistry;
+        this.geminiApiConfig = geminiApiConfig;
+
+        Gauge.builder("gemini.tier.waiting", fastGate, ConcurrencyGate::waiting).tag("tier", "fast")
+                .description("Batch requests waiting for a free slot of their model tier").register(meterRegistry);
+        Gauge.builder("gemini.tier.waiting", strongGate, ConcurrencyGate::waiting).tag("tier", "strong")
+                .description("Batch requests waiting for a free slot of their model tier").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Tier classify(SubtitleEntry entry) {
+        String text = entry.getText() == null ? "" : entry.getText();
+        int letters = 0;
+        int words = 0;
+        int longWords = 0;
+        int wordLetters = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isLetter(codePoint)) {
+                letters++;
+                wordLetters++;
+            } else if (wordLetters > 0 && codePoint != '\'' && codePoint != '-') {
+                words++;
+                longWords += wordLetters >= longWordLetters ? 1 : 0;
+                wordLetters = 0;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (wordLetters > 0) {
+            words++;
+            longWords += wordLetters >= longWordLetters ? 1 : 0;
+        }
+
+        if (letters <= easyMaxLetters) {
+            return Tier.FAST;
+        }
+        boolean dense = words > 0 && (double) longWords / words >= hardLongWordRatio;
+        return words >= hardMinWords || dense ? Tier.STRONG : Tier.FAST;
+    }
+
+    // null = the gemini.api model (and its cached system instruction)
+    public String model(Tier tier) {
+        return tier == Tier.FAST ? fastModel : strongModel;
+    }
+
+    public int batchSize(Tier tier) {
+        if (tier == Tier.FAST) {
+            return fastBatchSize;
+        }
+        return Math.max(1, strongBatchSize > 0 ? strongBatchSize : geminiApiConfig.getBatchSize());
+    }
+
+    // Windows in flight per pipeline; the tier gates are what actually bound the requests
+    public int windowConcurrency() {
+        return fastConcurrency + strongConcurrency();
+    }
+
+    private int strongConcurrency() {
+        return Math.max(1, strongConcurrency > 0 ? strongConcurrency : geminiApiConfig.getConcurrentRequests());
+    }
+
+    ConcurrencyGate gate(Tier tier) {
+        return tier == Tier.FAST ? fastGate : strongGate;
+    }
+
+    public void countLines(Tier tier, int lines) {
+        Counter.builder("gemini.tier.lines").tag("tier", tier.name().toLowerCase(Locale.ROOT))
+                .description("Subtitle lines routed to each model tier").register(meterRegistry).increment(lines);
+    }
+
+    public void countEscalations(int lines) {
+        Counter.builder("gemini.tier.escalations")
+                .description("Fast-tier lines re-translated by the strong tier after failing verification")
+                .register(meterRegistry).increment(lines);
+    }
+}
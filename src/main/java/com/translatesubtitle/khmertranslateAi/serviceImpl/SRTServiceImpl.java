@@ -1,8 +1,10 @@
 package com.translatesubtitle.khmertranslateAi.serviceImpl;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -13,6 +15,7 @@ import org.springframework.stereotype.Service;
 
 import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
 import com.translatesubtitle.khmertranslateAi.service.SRTService;
+import com.translatesubtitle.khmertranslateAi.service.SRTWriter;
 @Service
 public class SRTServiceImpl implements SRTService {
 
@@ -24,17 +27,21 @@ public class SRTServiceImpl implements SRTService {
         StringBuilder srtContent = new StringBuilder();
         
         for (SubtitleEntry entry : subtitleEntries) {
-            srtContent.append(entry.getSequence()).append("\n");
-            srtContent.append(entry.getStartTime())
-                     .append(" --> ")
-                     .append(entry.getEndTime())
-                     .append("\n");
-            srtContent.append(entry.getTranslatedText()).append("\n");
-            srtContent.append("\n"); // Empty line between entries
+            appendEntry(srtContent, entry);
         }
         
         return srtContent.toString();
     }
+
+    private static void appendEntry(StringBuilder srtContent, SubtitleEntry entry) {
+        srtContent.append(entry.getSequence()).append("\n");
+        srtContent.append(entry.getStartTime())
+                 .append(" --> ")
+                 .append(entry.getEndTime())
+                 .append("\n");
+        srtContent.append(entry.getTranslatedText()).append("\n");
+        srtContent.append("\n"); // Empty line between entries
+    }
     
     /**
      * Save SRT content to file
@@ -59,6 +66,33 @@ public class SRTServiceImpl implements SRTService {
         saveSRTToFile(srtContent, filePath);
     }
     
+    /**
+     * Open a writer that appends entries to the file as translated batches arrive
+     */
+	@Override
+    public SRTWriter openSRTWriter(String filePath) throws IOException {
+        File file = new File(filePath);
+        file.getParentFile().mkdirs();
+        Writer writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8));
+
+        return new SRTWriter() {
+            @Override
+            public void write(List<SubtitleEntry> subtitleEntries) throws IOException {
+                StringBuilder chunk = new StringBuilder();
+                for (SubtitleEntry entry : subtitleEntries) {
+                    appendEntry(chunk, entry);
+                }
+                writer.write(chunk.toString());
+                writer.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+    
     /**
      * Validate SRT time format (HH:MM:SS,mmm)
      */
@@ -1,8 +1,10 @@
 package com.translatesubtitle.khmertranslateAi.serviceImpl;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -10,6 +12,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -19,8 +23,13 @@ import org.springframework.stereotype.Service;
 import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
 import com.translatesubtitle.khmertranslateAi.service.SubtitleParsingService;
 
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
 @Service
 public class SubtitleParsingServiceImpl implements SubtitleParsingService {
+	// Enough of the stream for the charset detector, without waiting for the whole upload
+	private static final int DETECTION_BYTES = 16 * 1024;
 	private static final Pattern SRT_TIMESTAMP_PATTERN = Pattern
 			.compile("(\\d{2}:\\d{2}:\\d{2}[,.]\\d{3})\\s*-->\\s*(\\d{2}:\\d{2}:\\d{2}[,.]\\d{3})");
 
@@ -76,80 +85,111 @@ public class SubtitleParsingServiceImpl implements SubtitleParsingService {
 
 		try (BufferedReader reader = new BufferedReader(
 				new InputStreamReader(new ByteArrayInputStream(fileBytes), charset))) {
-			String line;
-			int currentSequence = -1;
-			String startTime = null;
-			String endTime = null;
-			StringBuilder textBuffer = new StringBuilder();
-			boolean expectingTimestamp = false;
-			boolean expectingText = false;
-
-			while ((line = reader.readLine()) != null) {
-				String trimmedLine = line.trim();
-
-				if (trimmedLine.isEmpty()) { // Blank line indicates end of an entry
-					if (currentSequence != -1 && startTime != null && endTime != null && textBuffer.length() > 0) {
-						entries.add(new SubtitleEntry(currentSequence, startTime, endTime, textBuffer.toString().trim())); // Add to the list
-						// Reset for next entry
-						currentSequence = -1;
-						startTime = null;
-						endTime = null;
-						textBuffer.setLength(0);
-						expectingTimestamp = false;
-						expectingText = false;
-					}
-					continue;
-				}
+			parseSrt(reader, entries::add);
+		}
+		return entries;
+	}
 
-				if (currentSequence == -1) {
-					try {
-						currentSequence = Integer.parseInt(trimmedLine);
-						expectingTimestamp = true;
-						continue;
-					} catch (NumberFormatException e) {
-						if (expectingText) {
-							if (textBuffer.length() > 0) {
-								textBuffer.append("\n");
-							}
-							textBuffer.append(line);
-						} else {
-							currentSequence = -1;
+	/**
+	 * Parses an SRT stream that may still be arriving: the encoding is detected from the first
+	 * {@value #DETECTION_BYTES} bytes and every entry is emitted as soon as its blank line is read.
+	 * Reading blocks, so it runs on the bounded elastic scheduler.
+	 */
+	@Override
+	public Flux<SubtitleEntry> streamEntries(InputStream in) {
+		return Flux.<SubtitleEntry>create(sink -> {
+			try (BufferedInputStream buffered = new BufferedInputStream(in, DETECTION_BYTES)) {
+				buffered.mark(DETECTION_BYTES);
+				byte[] head = buffered.readNBytes(DETECTION_BYTES);
+				buffered.reset();
+				Charset charset = Charset.forName(detectEncoding(head));
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(buffered, charset))) {
+					parseSrt(reader, entry -> {
+						if (sink.isCancelled()) {
+							throw new CancellationException();
 						}
-						continue;
-					}
+						sink.next(entry);
+					});
+				}
+				sink.complete();
+			} catch (CancellationException e) {
+				// The subscriber is gone (e.g. the job was cancelled): stop reading the upload
+			} catch (IOException | RuntimeException e) {
+				sink.error(e);
+			}
+		}).subscribeOn(Schedulers.boundedElastic());
+	}
+
+	private void parseSrt(BufferedReader reader, Consumer<SubtitleEntry> entries) throws IOException {
+		String line;
+		int currentSequence = -1;
+		String startTime = null;
+		String endTime = null;
+		StringBuilder textBuffer = new StringBuilder();
+		boolean expectingTimestamp = false;
+		boolean expectingText = false;
+
+		while ((line = reader.readLine()) != null) {
+			String trimmedLine = line.trim();
+
+			if (trimmedLine.isEmpty()) { // Blank line indicates end of an entry
+				if (currentSequence != -1 && startTime != null && endTime != null && textBuffer.length() > 0) {
+					entries.accept(new SubtitleEntry(currentSequence, startTime, endTime, textBuffer.toString().trim())); // Add to the list
+					// Reset for next entry
+					currentSequence = -1;
+					startTime = null;
+					endTime = null;
+					textBuffer.setLength(0);
+					expectingTimestamp = false;
+					expectingText = false;
 				}
+				continue;
+			}
 
-				if (expectingTimestamp) {
-					Matcher matcher = SRT_TIMESTAMP_PATTERN.matcher(trimmedLine);
-					if (matcher.matches()) {
-						startTime = matcher.group(1);
-						endTime = matcher.group(2);
-						expectingTimestamp = false;
-						expectingText = true;
+			if (currentSequence == -1) {
+				try {
+					currentSequence = Integer.parseInt(trimmedLine);
+					expectingTimestamp = true;
+					continue;
+				} catch (NumberFormatException e) {
+					if (expectingText) {
+						if (textBuffer.length() > 0) {
+							textBuffer.append("\n");
+						}
+						textBuffer.append(line);
 					} else {
 						currentSequence = -1;
-						expectingTimestamp = false;
 					}
 					continue;
 				}
+			}
 
-				if (expectingText) {
-					if (textBuffer.length() > 0) {
-						textBuffer.append("\n");
-					}
-					textBuffer.append(line);
+			if (expectingTimestamp) {
+				Matcher matcher = SRT_TIMESTAMP_PATTERN.matcher(trimmedLine);
+				if (matcher.matches()) {
+					startTime = matcher.group(1);
+					endTime = matcher.group(2);
+					expectingTimestamp = false;
+					expectingText = true;
+				} else {
+					currentSequence = -1;
+					expectingTimestamp = false;
 				}
+				continue;
 			}
 
-			// Add the last entry if the file doesn't end with a blank line
-			if (currentSequence != -1 && startTime != null && endTime != null && textBuffer.length() > 0) {
-				entries.add(new SubtitleEntry(currentSequence, startTime, endTime, textBuffer.toString().trim())); // Add to the list
+			if (expectingText) {
+				if (textBuffer.length() > 0) {
+					textBuffer.append("\n");
+				}
+				textBuffer.append(line);
 			}
+		}
 
-		} catch (IOException e) {
-			throw e;
+		// Add the last entry if the file doesn't end with a blank line
+		if (currentSequence != -1 && startTime != null && endTime != null && textBuffer.length() > 0) {
+			entries.accept(new SubtitleEntry(currentSequence, startTime, endTime, textBuffer.toString().trim())); // Add to the list
 		}
-		return entries;
 	}
 
 	@Override
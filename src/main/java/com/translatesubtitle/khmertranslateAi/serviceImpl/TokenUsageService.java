@@ -0,0 +1,211 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.translatesubtitle.khmertranslateAi.dto.GeminiDtos;
+import com.translatesubtitle.khmertranslateAi.dto.TokenUsage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Accounts the tokens Gemini reports in {@code usageMetadata} per job, per file, per batch and per
+ * API key, and enforces the token budgets.
+ * <p>
+ * Which job and file a request belongs to travels in the Reactor {@link Context} built by
+ * {@link #context(String, String, TokenUsage)}; the optional {@link TokenUsage} in it collects the
+ * usage of just that unit of work (the distributed worker uses it per batch). A request is refused
+ * with {@link TokenBudgetExceededException} before it is sent once its job has used
+ * {@code translation.budget.tokens-per-job} or this node has used
+ * {@code translation.budget.tokens-per-day} since midnight UTC.
+ */
+@Service
+public class TokenUsageService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenUsageService.class);
+
+    private static final String JOB_KEY = TokenUsageService.class.getName() + ".job";
+    private static final String FILE_KEY = TokenUsageService.class.getName() + ".file";
+    private static final String USAGE_KEY = TokenUsageService.class.getName() + ".usage";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxRetainedJobs;
+
+    // 0 = no budget
+    @Value("${translation.budget.tokens-per-job:0}")
+    private long tokensPerJob;
+
+    @Value("${translation.budget.tokens-per-day:0}")
+    private long tokensPerDay;
+
+    // Insertion-ordered like the job registry, so usage of evicted jobs is dropped too
+    private final LinkedHashMap<String, TokenUsage> byJob = new LinkedHashMap<>();
+    private final Map<String, Map<String, TokenUsage>> byJobFile = new ConcurrentHashMap<>();
+    private final Map<String, TokenUsage> byKey = new ConcurrentHashMap<>();
+    private final AtomicLong tokensToday = new AtomicLong();
+    private LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+    public TokenUsageService(MeterRegistry meterRegistry,
+            @Value("${translation.jobs.max-retained:50}") int maxRetainedJobs) {
+        this.meterRegistry = meterRegistry;
+        this.maxRetainedJobs = maxRetainedJobs;
+        Gauge.builder("gemini.tokens.today", this, usage -> usage.tokensToday())
+                .description("Tokens reported by Gemini since midnight UTC on this node").register(meterRegistry);
+    }
+
+    public static class TokenBudgetExceededException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public TokenBudgetExceededException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        // 0 when waiting does not help (the job's own budget is spent)
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    public static Context context(String jobId, String file, TokenUsage usage) {
+        Context context = Context.of(JOB_KEY, jobId, FILE_KEY, file);
+        return usage == null ? context : context.put(USAGE_KEY, usage);
+    }
+
+    /**
+     * Throws {@link TokenBudgetExceededException} when the request about to be sent is over budget.
+     */
+    public void checkBudget(ContextView context) {
+        if (tokensPerDay > 0 && tokensToday() >= tokensPerDay) {
+            throw new TokenBudgetExceededException("Daily token budget of " + tokensPerDay + " tokens exhausted.",
+                    secondsUntilMidnight());
+        }
+        String jobId = context.getOrDefault(JOB_KEY, null);
+        if (tokensPerJob > 0 && jobId != null && jobUsage(jobId).map(TokenUsage::getTotalTokens).orElse(0L) >= tokensPerJob) {
+            throw new TokenBudgetExceededException("Job " + jobId + " used its budget of " + tokensPerJob + " tokens.", 0);
+        }
+    }
+
+    public boolean isDailyBudgetExhausted() {
+        return tokensPerDay > 0 && tokensToday() >= tokensPerDay;
+    }
+
+    public long getTokensPerJob() {
+        return tokensPerJob;
+    }
+
+    public long secondsUntilMidnight() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        return Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay(ZoneOffset.UTC)).toSeconds();
+    }
+
+    public void record(ContextView context, String language, String apiKey, int batchEntries,
+            GeminiDtos.UsageMetadata usage) {
+        String jobId = context.getOrDefault(JOB_KEY, "none");
+        String file = context.getOrDefault(FILE_KEY, "none");
+        String key = keyId(apiKey);
+
+        synchronized (byJob) {
+            byJob.computeIfAbsent(jobId, id -> new TokenUsage()).add(usage);
+            Iterator<String> eldest = byJob.keySet().iterator();
+            while (byJob.size() > maxRetainedJobs && eldest.hasNext()) {
+                byJobFile.remove(eldest.next());
+                eldest.remove();
+            }
+        }
+        byJobFile.computeIfAbsent(jobId, id -> new ConcurrentHashMap<>()).computeIfAbsent(file, f -> new TokenUsage()).add(usage);
+        byKey.computeIfAbsent(key, k -> new TokenUsage()).add(usage);
+        if (context.hasKey(USAGE_KEY)) {
+            context.<TokenUsage>get(USAGE_KEY).add(usage);
+        }
+
+        if (usage == null) {
+            logger.warn("Gemini response for job {} ({}) carried no usageMetadata", jobId, language);
+            return;
+        }
+        long prompt = usage.promptTokenCount() == null ? 0 : usage.promptTokenCount();
+        long output = usage.candidatesTokenCount() == null ? 0 : usage.candidatesTokenCount();
+        // Same total as the per-job TokenUsage, so the daily and per-job budgets agree
+        addToday(usage.totalTokens());
+
+        count("prompt", language, key, prompt);
+        count("output", language, key, output);
+        count("cached", language, key, usage.cachedContentTokenCount() == null ? 0 : usage.cachedContentTokenCount());
+        count("thoughts", language, key, usage.thoughtsTokenCount() == null ? 0 : usage.thoughtsTokenCount());
+        // Per-line cost is what batch-size tuning needs: fixed prompt overhead shrinks per line as batches grow
+        if (batchEntries > 0) {
+            DistributionSummary.builder("gemini.tokens.per.entry").tag("type", "prompt").tag("language", language)
+                    .description("Tokens per subtitle line in one request").register(meterRegistry)
+                    .record((double) prompt / batchEntries);
+            DistributionSummary.builder("gemini.tokens.per.entry").tag("type", "output").tag("language", language)
+                    .description("Tokens per subtitle line in one request").register(meterRegistry)
+                    .record((double) output / batchEntries);
+        }
+        logger.debug("Job {} file {} ({}): batch of {} lines used {} prompt + {} output tokens", jobId, file, language,
+                batchEntries, prompt, output);
+    }
+
+    public Optional<TokenUsage> jobUsage(String jobId) {
+        synchronized (byJob) {
+            return Optional.ofNullable(byJob.get(jobId));
+        }
+    }
+
+    public Map<String, TokenUsage> fileUsage(String jobId) {
+        return Map.copyOf(byJobFile.getOrDefault(jobId, Map.of()));
+    }
+
+    public Map<String, TokenUsage> keyUsage() {
+        return Map.copyOf(byKey);
+    }
+
+    private void count(String type, String language, String key, long tokens) {
+        if (tokens > 0) {
+            Counter.builder("gemini.tokens").tag("type", type).tag("language", language).tag("key", key)
+                    .description("Tokens reported by Gemini usageMetadata").register(meterRegistry).increment(tokens);
+        }
+    }
+
+    private synchronized long tokensToday() {
+        rollDay();
+        return tokensToday.get();
+    }
+
+    private synchronized void addToday(long tokens) {
+        rollDay();
+        tokensToday.addAndGet(tokens);
+    }
+
+    private void rollDay() {
+        LocalDate now = LocalDate.now(ZoneOffset.UTC);
+        if (!now.equals(today)) {
+            today = now;
+            tokensToday.set(0);
+        }
+    }
+
+    // Never expose the key itself in metrics or status responses
+    private static String keyId(String apiKey) {
+        if (apiKey == null || apiKey.length() < 8) {
+            return "unknown";
+        }
+        return "..." + apiKey.substring(apiKey.length() - 4);
+    }
+}
@@ -0,0 +1,124 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.translatesubtitle.khmertranslateAi.dto.CachedTranslation;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.service.TranslationCacheService;
+
+/**
+ * Content-addressed cache of finished translations.
+ * <p>
+ * The key is the SHA-256 of the normalized subtitle entries (sequence, timing, text) plus the
+ * target language and model, so re-uploads of the same SRT under a new job id are served without
+ * calling Gemini. Entries are evicted least-recently-used once the estimated size exceeds
+ * {@code translation.cache.max-bytes}. Entries are copied in and out, so a job that edits its
+ * translated entries never changes what later jobs are served.
+ */
+@Service
+public class TranslationCacheServiceImpl implements TranslationCacheService {
+
+	private static final Logger logger = LoggerFactory.getLogger(TranslationCacheServiceImpl.class);
+
+	private final GeminiApiConfig geminiApiConfig;
+	private final long maxBytes;
+
+	// Access-ordered, so iteration starts at the least recently used entry
+	private final LinkedHashMap<String, CachedTranslation> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private long currentBytes;
+
+	public TranslationCacheServiceImpl(GeminiApiConfig geminiApiConfig,
+			@Value("${translation.cache.max-bytes:67108864}") long maxBytes) {
+		this.geminiApiConfig = geminiApiConfig;
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	public String cacheKey(List<SubtitleEntry> entries, String targetLanguage) {
+		MessageDigest digest = sha256();
+		update(digest, geminiApiConfig.getModel());
+		update(digest, targetLanguage.trim().toLowerCase());
+		for (SubtitleEntry entry : entries) {
+			update(digest, Integer.toString(entry.getSequence()));
+			update(digest, normalizeTime(entry.getStartTime()));
+			update(digest, normalizeTime(entry.getEndTime()));
+			update(digest, normalizeText(entry.getText()));
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	@Override
+	public synchronized Optional<CachedTranslation> get(String cacheKey) {
+		CachedTranslation cached = cache.get(cacheKey);
+		if (cached != null) {
+			logger.info("Translation cache hit for {}", cacheKey);
+		}
+		return Optional.ofNullable(cached).map(TranslationCacheServiceImpl::copy);
+	}
+
+	@Override
+	public synchronized void put(String cacheKey, CachedTranslation translation) {
+		long size = translation.estimatedBytes();
+		if (size > maxBytes) {
+			logger.info("Not caching translation {}: {} bytes exceeds cache size {}", cacheKey, size, maxBytes);
+			return;
+		}
+		CachedTranslation previous = cache.put(cacheKey, copy(translation));
+		if (previous != null) {
+			currentBytes -= previous.estimatedBytes();
+		}
+		currentBytes += size;
+
+		Iterator<Map.Entry<String, CachedTranslation>> eldest = cache.entrySet().iterator();
+		while (currentBytes > maxBytes && eldest.hasNext()) {
+			Map.Entry<String, CachedTranslation> evicted = eldest.next();
+			currentBytes -= evicted.getValue().estimatedBytes();
+			eldest.remove();
+			logger.debug("Evicted cached translation {}", evicted.getKey());
+		}
+	}
+
+	private static CachedTranslation copy(CachedTranslation translation) {
+		return new CachedTranslation(translation.srtContent(),
+				translation.entries().stream().map(SubtitleEntry::new).toList());
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	// Length-prefixed so that field boundaries cannot collide
+	private static void update(MessageDigest digest, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		digest.update((byte) (bytes.length >>> 24));
+		digest.update((byte) (bytes.length >>> 16));
+		digest.update((byte) (bytes.length >>> 8));
+		digest.update((byte) bytes.length);
+		digest.update(bytes);
+	}
+
+	private static String normalizeTime(String time) {
+		return time == null ? "" : time.trim().replace('.', ',');
+	}
+
+	private static String normalizeText(String text) {
+		return text == null ? "" : text.replace("\r\n", "\n").replace('\r', '\n').strip();
+	}
+}
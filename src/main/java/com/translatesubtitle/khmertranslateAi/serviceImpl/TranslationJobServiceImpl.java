@@ -0,0 +1,360 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.translatesubtitle.khmertranslateAi.dto.CachedTranslation;
+import com.translatesubtitle.khmertranslateAi.dto.JobStatus;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.dto.TranslationJob;
+import com.translatesubtitle.khmertranslateAi.service.SRTService;
+import com.translatesubtitle.khmertranslateAi.service.SRTWriter;
+import com.translatesubtitle.khmertranslateAi.service.SubtitleParsingService;
+import com.translatesubtitle.khmertranslateAi.service.TranslationCacheService;
+import com.translatesubtitle.khmertranslateAi.service.TranslationJobService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * In-memory registry of upload jobs and the translate step for a job.
+ * Only the most recent {@code translation.jobs.max-retained} jobs are kept.
+ */
+@Service
+public class TranslationJobServiceImpl implements TranslationJobService {
+
+	private static final Logger logger = LoggerFactory.getLogger(TranslationJobServiceImpl.class);
+	// Stable, so cues with the same start keep their file order; timestamps are fixed-width hh:mm:ss,mmm
+	private static final Comparator<SubtitleEntry> PLAYBACK_ORDER = Comparator
+			.comparing(entry -> entry.getStartTime() == null ? "" : entry.getStartTime().replace('.', ','));
+
+	private final SubtitleParsingService parsingService;
+	private final SRTService srtService;
+	private final TranslationCacheService cacheService;
+	private final GeminiTranslationService translationService;
+	private final IncrementalTranslationService incrementalTranslationService;
+	private final int maxRetainedJobs;
+
+	// Insertion-ordered so the oldest job is evicted first and the last one is the latest upload
+	private final LinkedHashMap<String, TranslationJob> jobs = new LinkedHashMap<>();
+
+	public TranslationJobServiceImpl(SubtitleParsingService parsingService, SRTService srtService,
+			TranslationCacheService cacheService, GeminiTranslationService translationService,
+			IncrementalTranslationService incrementalTranslationService,
+			@Value("${translation.jobs.max-retained:50}") int maxRetainedJobs) {
+		this.parsingService = parsingService;
+		this.srtService = srtService;
+		this.cacheService = cacheService;
+		this.translationService = translationService;
+		this.incrementalTranslationService = incrementalTranslationService;
+		this.maxRetainedJobs = maxRetainedJobs;
+	}
+
+	@Override
+	public TranslationJob createJob(List<Path> files) {
+		Map<Path, List<SubtitleEntry>> entriesByFile = new LinkedHashMap<>();
+		for (Path p : files) {
+			List<SubtitleEntry> entries = parsingService.entries(List.of(p));
+			// Batches are dispatched in list order, so the earliest cues are translated (and downloadable) first
+			entries.sort(PLAYBACK_ORDER);
+			entriesByFile.put(p, entries);
+		}
+		// Files of one upload share a job directory named after the job id
+		String jobId = files.isEmpty() || files.get(0).getParent() == null
+				? UUID.randomUUID().toString()
+				: files.get(0).getParent().getFileName().toString();
+		TranslationJob job = new TranslationJob(jobId, files, entriesByFile);
+		register(job);
+		logger.info("Created job {} with {} files and {} entries", jobId, files.size(), job.getTotalEntries());
+		return job;
+	}
+
+	@Override
+	public TranslationJob createStreamingJob(Path file) {
+		// Filled by the parser while the upload is still arriving
+		Map<Path, List<SubtitleEntry>> entriesByFile = new LinkedHashMap<>();
+		entriesByFile.put(file, Collections.synchronizedList(new ArrayList<>()));
+		TranslationJob job = new TranslationJob(file.getParent().getFileName().toString(), List.of(file), entriesByFile);
+		register(job);
+		logger.info("Created streaming job {} for {}", job.getJobId(), file.getFileName());
+		return job;
+	}
+
+	private void register(TranslationJob job) {
+		synchronized (jobs) {
+			jobs.put(job.getJobId(), job);
+			Iterator<TranslationJob> eldest = jobs.values().iterator();
+			while (jobs.size() > maxRetainedJobs && eldest.hasNext()) {
+				eldest.next();
+				eldest.remove();
+			}
+		}
+	}
+
+	@Override
+	public Optional<TranslationJob> findJob(String jobId) {
+		synchronized (jobs) {
+			return Optional.ofNullable(jobs.get(jobId));
+		}
+	}
+
+	@Override
+	public Optional<TranslationJob> latestJob() {
+		synchronized (jobs) {
+			TranslationJob latest = null;
+			for (TranslationJob job : jobs.values()) {
+				latest = job;
+			}
+			return Optional.ofNullable(latest);
+		}
+	}
+
+	@Override
+	public Map<String, List<SubtitleEntry>> translate(TranslationJob job, List<String> targetLanguages, boolean combined) {
+		if (job.isCancelled()) {
+			throw new CancellationException("Job " + job.getJobId() + " was cancelled");
+		}
+		// Only one start runs the job, also against a concurrent /startTranslate or /bulk
+		if (!job.compareAndSetStatus(JobStatus.UPLOADED, JobStatus.RUNNING)) {
+			throw new JobAlreadyStartedException(job.getJobId());
+		}
+		Map<String, List<SubtitleEntry>> block = new LinkedHashMap<>();
+		targetLanguages.forEach(language -> block.put(language, new ArrayList<>()));
+		try {
+			// One parse per upload: the same entries feed every target language
+			for (Map.Entry<Path, List<SubtitleEntry>> file : job.getEntriesByFile().entrySet()) {
+				if (job.isCancelled()) {
+					throw new CancellationException("Job " + job.getJobId() + " was cancelled");
+				}
+				Map<String, List<SubtitleEntry>> translated = translateFile(job, file.getKey(), file.getValue(), targetLanguages, combined);
+				translated.forEach((language, entries) -> {
+					job.getTranslatedByFile(language).put(file.getKey(), entries);
+					block.get(language).addAll(entries);
+				});
+			}
+			if (job.isCancelled()) {
+				throw new CancellationException("Job " + job.getJobId() + " was cancelled");
+			}
+			job.setStatus(JobStatus.COMPLETED);
+		} catch (CancellationException e) {
+			job.setStatus(JobStatus.CANCELLED);
+			deleteFiles(job);
+			throw e;
+		} catch (RuntimeException e) {
+			job.setStatus(JobStatus.FAILED);
+			throw e;
+		}
+		return block;
+	}
+
+	/**
+	 * Translates a single upload while it is still being received: entries are parsed from the
+	 * stream as they arrive and every full batch is sent to Gemini right away, so the first batches
+	 * are translated before the last bytes are in. The parsed entries of all languages come from one
+	 * pass over the upload.
+	 */
+	@Override
+	public Map<String, List<SubtitleEntry>> translateStreaming(TranslationJob job, InputStream upload,
+			List<String> targetLanguages, boolean combined) {
+		Path p = job.getFiles().get(0);
+		List<SubtitleEntry> entries = job.getEntriesByFile().get(p);
+		if (!job.compareAndSetStatus(JobStatus.UPLOADED, JobStatus.RUNNING)) {
+			throw new JobAlreadyStartedException(job.getJobId());
+		}
+		try {
+			Flux<SubtitleEntry> parsed = parsingService.streamEntries(upload).doOnNext(entries::add);
+			Flux<Map<String, List<SubtitleEntry>>> batches;
+			if (combined && targetLanguages.size() > 1) {
+				batches = translationService.translateEntryStreamMultiLanguage(parsed, targetLanguages);
+			} else {
+				// Every language reads the same parse; it starts once all of them have subscribed
+				Flux<SubtitleEntry> shared = parsed.publish().autoConnect(targetLanguages.size());
+				batches = Flux.fromIterable(targetLanguages).flatMap(language -> translationService
+						.translateEntryStream(shared, language).map(batch -> Map.of(language, batch)), targetLanguages.size());
+			}
+			Map<String, List<SubtitleEntry>> translated = writeBatches(job, p, targetLanguages, batches);
+			if (job.isCancelled()) {
+				throw new CancellationException("Job " + job.getJobId() + " was cancelled");
+			}
+			translated.forEach((language, t) -> {
+				job.getTranslatedByFile(language).put(p, t);
+				cacheIfComplete(cacheService.cacheKey(entries, language), entries, t);
+			});
+			job.setStatus(JobStatus.COMPLETED);
+			logger.info("Streaming job {} translated {} entries into {}", job.getJobId(), entries.size(), targetLanguages);
+			return translated;
+		} catch (CancellationException e) {
+			job.setStatus(JobStatus.CANCELLED);
+			deleteFiles(job);
+			throw e;
+		} catch (RuntimeException e) {
+			job.setStatus(JobStatus.FAILED);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean cancel(String jobId) {
+		Optional<TranslationJob> job = findJob(jobId);
+		if (job.isEmpty() || job.get().isCancelled()
+				|| (job.get().getStatus() != JobStatus.UPLOADED && job.get().getStatus() != JobStatus.RUNNING)) {
+			return false;
+		}
+		boolean running = job.get().getStatus() == JobStatus.RUNNING;
+		job.get().cancel();
+		logger.info("Cancelling job {} ({})", jobId, running ? "running" : "not started");
+		// A running job deletes its files once its pipeline has unwound and its writers are closed
+		if (job.get().compareAndSetStatus(JobStatus.UPLOADED, JobStatus.CANCELLED)) {
+			deleteFiles(job.get());
+		}
+		return true;
+	}
+
+	// The cancelled job stays registered so its status can still be queried
+	private void deleteFiles(TranslationJob job) {
+		if (!job.getFiles().isEmpty() && job.getFiles().get(0).getParent() != null) {
+			srtService.deleteDirectoryRecursively(job.getFiles().get(0).getParent());
+		}
+	}
+
+	private Map<String, List<SubtitleEntry>> translateFile(TranslationJob job, Path p, List<SubtitleEntry> entries,
+			List<String> targetLanguages, boolean combined) {
+		Map<String, List<SubtitleEntry>> result = new LinkedHashMap<>();
+		Map<String, String> cacheKeys = new LinkedHashMap<>();
+		List<String> pending = new ArrayList<>();
+
+		for (String language : targetLanguages) {
+			// Identical content (same entries, language and model) is served from the cache without calling Gemini
+			String cacheKey = cacheService.cacheKey(entries, language);
+			Optional<CachedTranslation> cached = cacheService.get(cacheKey);
+			if (cached.isPresent()) {
+				writeOutput(job, TranslationJob.outputFile(p, language), cached.get().srtContent());
+				result.put(language, cached.get().entries());
+			} else {
+				cacheKeys.put(language, cacheKey);
+				pending.add(language);
+			}
+		}
+
+		List<String> incremental = pending.stream()
+				.filter(language -> !job.getPreviousTranslations().getOrDefault(language, Map.of()).isEmpty())
+				.collect(Collectors.toList());
+		for (String language : incremental) {
+			List<SubtitleEntry> translated = incrementalTranslationService
+					.retranslate(entries, job.getPreviousTranslations().get(language), language)
+					.contextWrite(TokenUsageService.context(job.getJobId(), p.getFileName().toString(), null))
+					.takeUntilOther(job.cancelled())
+					.block();
+			if (translated == null) {
+				return result;
+			}
+			writeOutput(job, TranslationJob.outputFile(p, language), srtService.generateSRT(translated));
+			result.put(language, translated);
+		}
+		pending.removeAll(incremental);
+
+		if (!pending.isEmpty()) {
+			result.putAll(streamTranslation(job, p, entries, pending, combined));
+		}
+
+		for (Map.Entry<String, String> cacheKey : cacheKeys.entrySet()) {
+			cacheIfComplete(cacheKey.getValue(), entries, result.get(cacheKey.getKey()));
+		}
+		return result;
+	}
+
+	private void cacheIfComplete(String cacheKey, List<SubtitleEntry> entries, List<SubtitleEntry> translated) {
+		if (translated != null && translated.size() == entries.size()
+				&& translated.stream().noneMatch(GeminiTranslationService::isFailedTranslation)) {
+			cacheService.put(cacheKey, new CachedTranslation(srtService.generateSRT(translated), List.copyOf(translated)));
+		}
+	}
+
+	/**
+	 * Translates into all pending languages and appends each translated batch to that language's
+	 * output file as soon as it arrives. In combined mode one structured request per batch covers
+	 * every language; otherwise the languages are translated one after another.
+	 */
+	private Map<String, List<SubtitleEntry>> streamTranslation(TranslationJob job, Path p, List<SubtitleEntry> entries,
+			List<String> languages, boolean combined) {
+		Flux<Map<String, List<SubtitleEntry>>> batches = combined && languages.size() > 1
+				? translationService.translateBatchesMultiLanguage(entries, languages)
+				: Flux.fromIterable(languages).concatMap(language -> translationService.translateBatches(entries, language)
+						.map(batch -> Map.of(language, batch)));
+		return writeBatches(job, p, languages, batches);
+	}
+
+	// Batches arrive in cue order; each one is also committed to the job so the prefix can be downloaded early
+	private Map<String, List<SubtitleEntry>> writeBatches(TranslationJob job, Path p, List<String> languages,
+			Flux<Map<String, List<SubtitleEntry>>> batches) {
+		Map<String, List<SubtitleEntry>> collected = new LinkedHashMap<>();
+		Map<String, SRTWriter> writers = new LinkedHashMap<>();
+		try {
+			for (String language : languages) {
+				collected.put(language, job.startCommitted(language, p));
+				writers.put(language, srtService.openSRTWriter(TranslationJob.outputFile(p, language).toString()));
+			}
+
+			// Writing is blocking file IO: keep it off the gemini-cpu threads the batches arrive on
+			batches.publishOn(Schedulers.boundedElastic())
+					.doOnNext(batchByLanguage -> batchByLanguage.forEach((language, batch) -> {
+						try {
+							writers.get(language).write(batch);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+						collected.get(language).addAll(batch);
+					}))
+					// Cancelling drops queued batches and disposes the in-flight WebClient exchanges and retries
+					.takeUntilOther(job.cancelled())
+					.contextWrite(TokenUsageService.context(job.getJobId(), p.getFileName().toString(), null))
+					.blockLast();
+		} catch (IOException e) {
+			// The job must end FAILED, not COMPLETED (and cached) with a partial result
+			logger.error("Could not write translated file {} for job {}: {}", p, job.getJobId(), e.getMessage());
+			throw new UncheckedIOException(e);
+		} catch (UncheckedIOException e) {
+			logger.error("Could not write translated file {} for job {}: {}", p, job.getJobId(), e.getMessage());
+			throw e;
+		} finally {
+			writers.values().forEach(this::closeQuietly);
+		}
+		return collected;
+	}
+
+	private void closeQuietly(SRTWriter writer) {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			logger.warn("Could not close SRT writer: {}", e.getMessage());
+		}
+	}
+
+	// A file that could not be written fails the job, like a failed batch write does
+	private void writeOutput(TranslationJob job, Path p, String srtContent) {
+		try {
+			srtService.saveSRTToFile(srtContent, p.toString());
+		} catch (IOException e) {
+			logger.error("Could not write translated file {} for job {}: {}", p, job.getJobId(), e.getMessage());
+			throw new UncheckedIOException(e);
+		}
+	}
+}
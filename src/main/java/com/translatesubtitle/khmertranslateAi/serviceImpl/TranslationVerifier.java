@@ -0,0 +1,116 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+/**
+ * Cheap local check of translated lines, run after every batch.
+ * <p>
+ * A line fails when it carries a failure marker. Lines long enough not to be a bare name or
+ * interjection also fail when the model returned the source text unchanged, or when too few of
+ * the translation's letters are in the target language's script. The script check only applies
+ * to languages with a distinctive script, such as Khmer, Thai or Lao.
+ */
+@Component
+public class TranslationVerifier {
+
+    private static final Map<String, Character.UnicodeScript> SCRIPTS = Map.ofEntries(
+            Map.entry("khmer", Character.UnicodeScript.KHMER),
+            Map.entry("thai", Character.UnicodeScript.THAI),
+            Map.entry("lao", Character.UnicodeScript.LAO),
+            Map.entry("burmese", Character.UnicodeScript.MYANMAR),
+            Map.entry("myanmar", Character.UnicodeScript.MYANMAR),
+            Map.entry("korean", Character.UnicodeScript.HANGUL),
+            Map.entry("chinese", Character.UnicodeScript.HAN),
+            Map.entry("russian", Character.UnicodeScript.CYRILLIC),
+            Map.entry("arabic", Character.UnicodeScript.ARABIC),
+            Map.entry("hindi", Character.UnicodeScript.DEVANAGARI));
+
+    private final boolean enabled;
+    private final double minScriptRatio;
+    private final int minCopyLetters;
+    private final int maxRetries;
+    private final int microBatchSize;
+
+    public TranslationVerifier(@Value("${translation.verify.enabled:true}") boolean enabled,
+            @Value("${translation.verify.min-script-ratio:0.4}") double minScriptRatio,
+            @Value("${translation.verify.min-copy-letters:8}") int minCopyLetters,
+            @Value("${translation.verify.max-retries:2}") int maxRetries,
+            @Value("${translation.verify.micro-batch-size:10}") int microBatchSize) {
+        this.enabled = enabled;
+        this.minScriptRatio = minScriptRatio;
+        this.minCopyLetters = minCopyLetters;
+        this.maxRetries = maxRetries;
+        this.microBatchSize = Math.max(1, microBatchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public int getMicroBatchSize() {
+        return microBatchSize;
+    }
+
+    /**
+     * Positions of the lines in {@code translated} that fail verification.
+     */
+    public List<Integer> failingLines(List<SubtitleEntry> translated, String targetLanguage) {
+        List<Integer> failing = new ArrayList<>();
+        for (int i = 0; i < translated.size(); i++) {
+            if (fails(translated.get(i), targetLanguage)) {
+                failing.add(i);
+            }
+        }
+        return failing;
+    }
+
+    public boolean fails(SubtitleEntry entry, String targetLanguage) {
+        if (GeminiTranslationService.isFailedTranslation(entry)) {
+            return true;
+        }
+        String source = entry.getText() == null ? "" : entry.getText().strip();
+        // Short lines ("John!", "OK") may legitimately stay in English
+        if (letters(source) < minCopyLetters) {
+            return false;
+        }
+        String translated = entry.getTranslatedText().strip();
+        if (translated.equalsIgnoreCase(source)) {
+            return true;
+        }
+        Character.UnicodeScript script = SCRIPTS.get(targetLanguage.strip().toLowerCase(Locale.ROOT));
+        return script != null && scriptRatio(translated, script) < minScriptRatio;
+    }
+
+    // Share of the letters in text that belong to script (vowel signs are marks, not letters)
+    static double scriptRatio(String text, Character.UnicodeScript script) {
+        int letters = 0;
+        int inScript = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isLetter(codePoint)) {
+                letters++;
+                if (Character.UnicodeScript.of(codePoint) == script) {
+                    inScript++;
+                }
+            }
+            i += Character.charCount(codePoint);
+        }
+        return letters == 0 ? 0 : (double) inScript / letters;
+    }
+
+    private static int letters(String text) {
+        return (int) text.codePoints().filter(Character::isLetter).count();
+    }
+}
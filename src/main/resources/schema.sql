@@ -0,0 +1,42 @@
+-- Distributed job queue (translation.queue.distributed=true), see DistributedJobQueueService
+CREATE TABLE IF NOT EXISTS translation_job (
+    job_id        VARCHAR(64) PRIMARY KEY,
+    status        VARCHAR(16) NOT NULL,
+    languages     VARCHAR(512),
+    total_batches INTEGER NOT NULL DEFAULT 0,
+    created_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at    TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS translation_job_file (
+    id           BIGSERIAL PRIMARY KEY,
+    job_id       VARCHAR(64) NOT NULL REFERENCES translation_job (job_id) ON DELETE CASCADE,
+    file_index   INTEGER NOT NULL,
+    file_name    VARCHAR(512) NOT NULL,
+    entries_json TEXT NOT NULL,
+    UNIQUE (job_id, file_index)
+);
+
+CREATE TABLE IF NOT EXISTS translation_batch (
+    id               BIGSERIAL PRIMARY KEY,
+    job_id           VARCHAR(64) NOT NULL REFERENCES translation_job (job_id) ON DELETE CASCADE,
+    file_index       INTEGER NOT NULL,
+    language         VARCHAR(64) NOT NULL,
+    batch_index      INTEGER NOT NULL,
+    status           VARCHAR(16) NOT NULL,
+    source_json      TEXT NOT NULL,
+    result_json      TEXT,
+    attempts         INTEGER NOT NULL DEFAULT 0,
+    prompt_tokens    BIGINT NOT NULL DEFAULT 0,
+    output_tokens    BIGINT NOT NULL DEFAULT 0,
+    total_tokens     BIGINT NOT NULL DEFAULT 0,
+    lease_owner      VARCHAR(128),
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    last_error       TEXT,
+    created_at       TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at       TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Claim scan: pending and lease-expired batches in queue order
+CREATE INDEX IF NOT EXISTS idx_translation_batch_claim_order ON translation_batch (status, created_at, batch_index, id);
+CREATE INDEX IF NOT EXISTS idx_translation_batch_job ON translation_batch (job_id, language, file_index, batch_index);
@@ -0,0 +1,77 @@
+package com.translatesubtitle.khmertranslateAi.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.GeminiApiConfig;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.GeminiTranslationService;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.SRTServiceImpl;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.SubtitleParsingServiceImpl;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.TokenUsageService;
+import com.translatesubtitle.khmertranslateAi.serviceImpl.TranslationCacheServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class DirectoryTranslationRunnerTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	void translatesTheConfiguredDirectoryWhenStartedWithOptionArgs() throws Exception {
+		Path source = root.resolve("season1").resolve("movie.srt");
+		Files.createDirectories(source.getParent());
+		Files.writeString(source, "1\n00:00:01,000 --> 00:00:02,000\nHello.\n\n2\n00:00:03,000 --> 00:00:04,000\nGoodbye.\n",
+				StandardCharsets.UTF_8);
+		// Output of an earlier run into another language, and a source that only looks like one
+		Files.writeString(source.resolveSibling("movie.thai.srt"), "1\n00:00:01,000 --> 00:00:02,000\nสวัสดี\n",
+				StandardCharsets.UTF_8);
+		Path tagged = source.resolveSibling("trailer.en.srt");
+		Files.writeString(tagged, "1\n00:00:01,000 --> 00:00:02,000\nSoon.\n", StandardCharsets.UTF_8);
+
+		GeminiTranslationService translationService = mock(GeminiTranslationService.class);
+		when(translationService.translateSubtitles(anyList(), eq("Khmer"))).thenAnswer(invocation -> {
+			List<SubtitleEntry> translated = new ArrayList<>();
+			for (SubtitleEntry entry : invocation.<List<SubtitleEntry>>getArgument(0)) {
+				SubtitleEntry copy = new SubtitleEntry(entry);
+				copy.setTranslatedText("km:" + entry.getText());
+				translated.add(copy);
+			}
+			return Mono.just(translated);
+		});
+		DirectoryTranslationRunner runner = new DirectoryTranslationRunner(new SubtitleParsingServiceImpl(), translationService,
+				new TranslationCacheServiceImpl(new GeminiApiConfig(), 1024 * 1024), new SRTServiceImpl(),
+				new TokenUsageService(new SimpleMeterRegistry(), 50), new GeminiApiConfig());
+		ReflectionTestUtils.setField(runner, "inputDir", root.toString());
+		ReflectionTestUtils.setField(runner, "languages", List.of("Khmer"));
+		ReflectionTestUtils.setField(runner, "parallelFiles", 2);
+		ReflectionTestUtils.setField(runner, "reportIntervalSeconds", 30L);
+
+		// What Spring passes for: java -jar app.jar --spring.profiles.active=cli --translation.cli.input-dir=...
+		runner.run(new DefaultApplicationArguments("--spring.profiles.active=cli", "--translation.cli.input-dir=" + root));
+
+		Path output = source.resolveSibling("movie.khmer.srt");
+		assertThat(output).exists();
+		assertThat(Files.readString(output, StandardCharsets.UTF_8)).contains("km:Hello.", "km:Goodbye.");
+		assertThat(source.resolveSibling("movie.khmer.srt.part")).doesNotExist();
+		assertThat(source.resolveSibling("movie.thai.khmer.srt")).doesNotExist();
+		assertThat(tagged.resolveSibling("trailer.en.khmer.srt")).exists();
+		assertThat(runner.getExitCode()).isZero();
+	}
+}
@@ -0,0 +1,55 @@
+package com.translatesubtitle.khmertranslateAi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import com.translatesubtitle.khmertranslateAi.serviceImpl.GeminiApiConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+
+class GeminiSettingsEndpointTest {
+
+	private final GeminiApiConfig config = new GeminiApiConfig();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final GeminiSettingsEndpoint endpoint = new GeminiSettingsEndpoint(config,
+			Validation.buildDefaultValidatorFactory().getValidator(), registry);
+
+	@Test
+	void invalidWriteChangesNothing() {
+		Map<String, Object> before = endpoint.settings();
+
+		// A valid batch size next to an invalid concurrency: neither is applied
+		assertThatThrownBy(() -> endpoint.update(200, 0, null, null, null, null))
+				.isInstanceOf(InvalidEndpointRequestException.class)
+				.hasMessageContaining("concurrentRequests");
+
+		assertThat(endpoint.settings()).isEqualTo(before);
+		assertThat(config.getBatchSize()).isEqualTo(before.get("batchSize"));
+	}
+
+	@Test
+	void backoffRangeIsCheckedAcrossSettings() {
+		Map<String, Object> before = endpoint.settings();
+
+		assertThatThrownBy(() -> endpoint.update(null, null, null, null, 120L, 60L))
+				.isInstanceOf(InvalidEndpointRequestException.class);
+
+		assertThat(endpoint.settings()).isEqualTo(before);
+	}
+
+	@Test
+	void validWriteAppliesEverySettingAndUpdatesTheGauges() {
+		endpoint.update(200, 2, 0L, null, null, null);
+
+		assertThat(config.getBatchSize()).isEqualTo(200);
+		assertThat(config.getConcurrentRequests()).isEqualTo(2);
+		assertThat(config.getDelayBetweenBatchRequestMs()).isZero();
+		assertThat(registry.get("gemini.settings").tag("setting", "batch-size").gauge().value()).isEqualTo(200);
+	}
+}
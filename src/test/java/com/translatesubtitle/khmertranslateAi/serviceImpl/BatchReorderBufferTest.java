@@ -0,0 +1,50 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class BatchReorderBufferTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final BatchReorderBuffer buffer = new BatchReorderBuffer(registry);
+
+	@Test
+	void emitsInInputOrderWhenBatchesFinishInReverse() {
+		// Batch 0 takes 400 ms, batch 3 only 100 ms: all four run at once and finish last to first
+		StepVerifier.withVirtualTime(() -> buffer.inOrder(Flux.range(0, 4),
+				i -> Mono.delay(Duration.ofMillis((4 - i) * 100L)).thenReturn(i), 4))
+				.expectSubscription()
+				.expectNoEvent(Duration.ofMillis(399))
+				.then(() -> assertThat(buffered()).isEqualTo(3))
+				.thenAwait(Duration.ofMillis(1))
+				.expectNext(0, 1, 2, 3)
+				.verifyComplete();
+
+		assertThat(buffered()).isZero();
+	}
+
+	@Test
+	void cancellingDropsBufferedBatches() {
+		StepVerifier.withVirtualTime(() -> buffer.inOrder(Flux.range(0, 3),
+				i -> i == 0 ? Mono.<Integer>never() : Mono.delay(Duration.ofMillis(10)).thenReturn(i), 3))
+				.expectSubscription()
+				.thenAwait(Duration.ofMillis(10))
+				.then(() -> assertThat(buffered()).isEqualTo(2))
+				.thenCancel()
+				.verify();
+
+		assertThat(buffered()).isZero();
+	}
+
+	private double buffered() {
+		return registry.get("translation.reorder.buffered").gauge().value();
+	}
+}
@@ -0,0 +1,167 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.translatesubtitle.khmertranslateAi.dto.BatchPredictionResult;
+import com.translatesubtitle.khmertranslateAi.dto.GeminiDtos;
+import com.translatesubtitle.khmertranslateAi.dto.JobStatus;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.dto.TranslationJob;
+import com.translatesubtitle.khmertranslateAi.service.BatchPredictionClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class BulkTranslationServiceTest {
+
+	@TempDir
+	Path root;
+
+	private final GeminiApiConfig config = new GeminiApiConfig();
+	private final GeminiPromptFactory promptFactory = new GeminiPromptFactory(null, config);
+	private final TokenUsageService tokenUsage = new TokenUsageService(new SimpleMeterRegistry(), 50);
+	private final GeminiTranslationService translationService = new GeminiTranslationService(null, config, promptFactory,
+			tokenUsage, null, Schedulers.immediate(), null, null);
+
+	@Test
+	void mapsResultsBackByJobFileAndLanguageInCueOrder() {
+		config.setBatchSize(2);
+		TranslationJob first = job("first", file("a.srt", "A1", "A2", "A3"), file("b.srt", "B1"));
+		TranslationJob second = job("second", file("c.srt", "C1", "C2"));
+		BulkTranslationService service = service(new LocalBatchPredictionClient(), 2);
+
+		service.submit(List.of(first, second), List.of("Khmer", "Thai"));
+		service.poll();
+		service.poll();
+
+		for (String language : List.of("Khmer", "Thai")) {
+			assertThat(texts(first, "a.srt", language)).containsExactly("A1", "A2", "A3");
+			assertThat(texts(first, "b.srt", language)).containsExactly("B1");
+			assertThat(texts(second, "c.srt", language)).containsExactly("C1", "C2");
+		}
+		assertThat(first.getStatus()).isEqualTo(JobStatus.COMPLETED);
+		assertThat(second.getStatus()).isEqualTo(JobStatus.COMPLETED);
+		assertThat(TranslationJob.outputFile(root.resolve("first").resolve("a.srt"), "Khmer")).exists();
+	}
+
+	@Test
+	void missingResponseIsRetranslatedOnline() {
+		config.setBatchSize(2);
+		TranslationJob job = job("job", file("a.srt", "A1", "A2", "A3"));
+		GeminiTranslationService online = spy(translationService);
+		// Stands in for the verifier's micro-batch re-translation of the marked line
+		doAnswer(invocation -> Mono.just(invocation.<List<SubtitleEntry>>getArgument(0).stream().map(entry -> {
+			SubtitleEntry retried = new SubtitleEntry(entry);
+			if (GeminiTranslationService.isFailedTranslation(entry)) {
+				retried.setTranslatedText("online:" + entry.getText());
+			}
+			return retried;
+		}).toList())).when(online).verify(anyList(), eq("Khmer"));
+		BulkTranslationService service = new BulkTranslationService(withoutResponse("job/0/Khmer/1"), promptFactory, online,
+				config, tokenUsage, new SRTServiceImpl(), 500);
+
+		service.submit(List.of(job), List.of("Khmer"));
+		service.poll();
+		service.poll();
+
+		assertThat(texts(job, "a.srt", "Khmer")).containsExactly("A1", "A2", "online:A3");
+		assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+	}
+
+	@Test
+	void lineStillMarkedAfterVerificationFailsTheJob() {
+		config.setBatchSize(2);
+		TranslationJob job = job("job", file("a.srt", "A1", "A2", "A3"));
+		// No API key: nothing can be re-translated, so the [API Error] line stays
+		BulkTranslationService service = service(withoutResponse("job/0/Khmer/1"), 500);
+
+		service.submit(List.of(job), List.of("Khmer"));
+		service.poll();
+		service.poll();
+
+		assertThat(job.getStatus()).isEqualTo(JobStatus.FAILED);
+		assertThat(job.getTranslatedFiles("Khmer")).isEmpty();
+		assertThat(TranslationJob.outputFile(root.resolve("job").resolve("a.srt"), "Khmer")).doesNotExist();
+	}
+
+	@Test
+	void jobInAFailedSubmissionFails() {
+		config.setBatchSize(2);
+		TranslationJob job = job("job", file("a.srt", "A1", "A2"));
+		BulkTranslationService service = service(changingResults(result -> new BatchPredictionResult(result.name(),
+				BatchPredictionResult.State.EXPIRED, Map.of(), Map.of())), 500);
+
+		service.submit(List.of(job), List.of("Khmer"));
+		service.poll();
+		service.poll();
+
+		assertThat(job.getStatus()).isEqualTo(JobStatus.FAILED);
+		assertThat(job.getTranslatedFiles("Khmer")).isEmpty();
+	}
+
+	private BulkTranslationService service(BatchPredictionClient client, int maxRequestsPerSubmission) {
+		return new BulkTranslationService(client, promptFactory, translationService, config, tokenUsage, new SRTServiceImpl(),
+				maxRequestsPerSubmission);
+	}
+
+	private static BatchPredictionClient withoutResponse(String key) {
+		return changingResults(result -> {
+			Map<String, GeminiDtos.GeminiResponse> responses = new LinkedHashMap<>(result.responses());
+			responses.remove(key);
+			return new BatchPredictionResult(result.name(), result.state(), responses, Map.of(key, "quota"));
+		});
+	}
+
+	// The local stand-in, with its finished results passed through change
+	private static BatchPredictionClient changingResults(Function<BatchPredictionResult, BatchPredictionResult> change) {
+		LocalBatchPredictionClient local = new LocalBatchPredictionClient();
+		return new BatchPredictionClient() {
+			@Override
+			public Mono<String> submit(String displayName, Map<String, GeminiDtos.GeminiRequest> requests) {
+				return local.submit(displayName, requests);
+			}
+
+			@Override
+			public Mono<BatchPredictionResult> poll(String batchName) {
+				return local.poll(batchName).map(result -> result.isDone() ? change.apply(result) : result);
+			}
+		};
+	}
+
+	private Map.Entry<String, List<SubtitleEntry>> file(String name, String... lines) {
+		List<SubtitleEntry> entries = new ArrayList<>();
+		for (int i = 0; i < lines.length; i++) {
+			entries.add(new SubtitleEntry(i + 1, "00:00:0" + i + ",000", "00:00:0" + i + ",500", lines[i]));
+		}
+		return Map.entry(name, entries);
+	}
+
+	@SafeVarargs
+	private TranslationJob job(String jobId, Map.Entry<String, List<SubtitleEntry>>... files) {
+		Map<Path, List<SubtitleEntry>> entriesByFile = new LinkedHashMap<>();
+		for (Map.Entry<String, List<SubtitleEntry>> file : files) {
+			entriesByFile.put(root.resolve(jobId).resolve(file.getKey()), file.getValue());
+		}
+		return new TranslationJob(jobId, List.copyOf(entriesByFile.keySet()), entriesByFile);
+	}
+
+	private List<String> texts(TranslationJob job, String fileName, String language) {
+		return job.getTranslatedFiles(language).get(root.resolve(job.getJobId()).resolve(fileName)).stream()
+				.map(SubtitleEntry::getTranslatedText).toList();
+	}
+}
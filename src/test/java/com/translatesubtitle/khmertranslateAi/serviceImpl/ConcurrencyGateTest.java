@@ -0,0 +1,62 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ConcurrencyGateTest {
+
+	@Test
+	void runsAtMostLimitCallsAtOnce() {
+		ConcurrencyGate gate = new ConcurrencyGate(2);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		Long completed = Flux.range(0, 8)
+				.flatMap(i -> gate.run(() -> Mono.fromRunnable(() -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+						.then(Mono.delay(Duration.ofMillis(20)))
+						.doFinally(signal -> running.decrementAndGet())))
+				.count()
+				.block(Duration.ofSeconds(5));
+
+		assertThat(completed).isEqualTo(8);
+		assertThat(maxRunning.get()).isEqualTo(2);
+	}
+
+	@Test
+	void cancelledCallsGiveTheirPermitBack() {
+		ConcurrencyGate gate = new ConcurrencyGate(1);
+		Disposable holder = gate.run(Mono::never).subscribe();
+		Disposable waiter = gate.run(Mono::never).subscribe();
+		assertThat(gate.waiting()).isEqualTo(1);
+
+		waiter.dispose();
+		holder.dispose();
+
+		assertThat(gate.waiting()).isZero();
+		assertThat(gate.run(() -> Mono.just("free")).block(Duration.ofSeconds(1))).isEqualTo("free");
+	}
+
+	@Test
+	void raisedLimitAdmitsWaitingCalls() {
+		AtomicInteger limit = new AtomicInteger(1);
+		ConcurrencyGate gate = new ConcurrencyGate(limit::get);
+		Disposable first = gate.run(Mono::never).subscribe();
+		Disposable second = gate.run(Mono::never).subscribe();
+		assertThat(gate.waiting()).isEqualTo(1);
+
+		limit.set(3);
+
+		assertThat(gate.run(() -> Mono.just("admitted")).block(Duration.ofSeconds(1))).isEqualTo("admitted");
+		assertThat(gate.waiting()).isZero();
+		first.dispose();
+		second.dispose();
+	}
+}
@@ -0,0 +1,99 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.translatesubtitle.khmertranslateAi.dto.JobStatus;
+import com.translatesubtitle.khmertranslateAi.dto.TokenUsage;
+import com.translatesubtitle.khmertranslateAi.entity.BatchStatus;
+import com.translatesubtitle.khmertranslateAi.entity.TranslationBatchRecord;
+import com.translatesubtitle.khmertranslateAi.repository.TranslationBatchRecordRepository;
+import com.translatesubtitle.khmertranslateAi.repository.TranslationFileRecordRepository;
+import com.translatesubtitle.khmertranslateAi.repository.TranslationJobRecordRepository;
+
+// The claim, lease and heartbeat bookkeeping; the locking queries themselves need PostgreSQL
+class DistributedJobQueueServiceTest {
+
+	private final TranslationJobRecordRepository jobRepository = mock(TranslationJobRecordRepository.class);
+	private final TranslationBatchRecordRepository batchRepository = mock(TranslationBatchRecordRepository.class);
+	private final DistributedJobQueueService queue = new DistributedJobQueueService(jobRepository,
+			mock(TranslationFileRecordRepository.class), batchRepository, new GeminiApiConfig(), new SRTServiceImpl());
+
+	@Test
+	void claimLeasesPendingAndExpiredBatchesToTheClaimingNode() {
+		TranslationBatchRecord pending = batch(1L, BatchStatus.PENDING, null, 0);
+		TranslationBatchRecord expired = batch(2L, BatchStatus.CLAIMED, "node-b", 1);
+		when(batchRepository.findJobsWithExpiredLeases(any(), eq(3))).thenReturn(List.of());
+		when(batchRepository.lockClaimable(any(), eq(5), eq(3))).thenReturn(List.of(pending, expired));
+		Instant before = Instant.now();
+
+		List<TranslationBatchRecord> claimed = queue.claim("node-a", 5, Duration.ofSeconds(60), 3);
+
+		assertThat(claimed).containsExactly(pending, expired);
+		for (TranslationBatchRecord batch : claimed) {
+			assertThat(batch.getStatus()).isEqualTo(BatchStatus.CLAIMED);
+			assertThat(batch.getLeaseOwner()).isEqualTo("node-a");
+			assertThat(batch.getLeaseExpiresAt()).isAfterOrEqualTo(before.plusSeconds(60));
+		}
+		assertThat(pending.getAttempts()).isEqualTo(1);
+		assertThat(expired.getAttempts()).isEqualTo(2);
+		verify(batchRepository, never()).failExpiredLeases(any(), eq(3), anyString());
+	}
+
+	@Test
+	void leaseExpiredOnTheLastAttemptFailsTheBatchAndItsJob() {
+		when(batchRepository.findJobsWithExpiredLeases(any(), eq(3))).thenReturn(List.of("job"));
+		when(batchRepository.failExpiredLeases(any(), eq(3), anyString())).thenReturn(1);
+		when(batchRepository.countByJobIdAndStatus("job", BatchStatus.FAILED)).thenReturn(1L);
+		when(batchRepository.lockClaimable(any(), eq(5), eq(3))).thenReturn(List.of());
+
+		assertThat(queue.claim("node-a", 5, Duration.ofSeconds(60), 3)).isEmpty();
+
+		verify(jobRepository).finishRunning(eq("job"), eq(JobStatus.FAILED), any());
+	}
+
+	@Test
+	void heartbeatExtendsLeasesAndReportsTheOnesStillHeld() {
+		when(batchRepository.findHeldIds(List.of(1L, 2L), "node-a")).thenReturn(List.of(1L));
+
+		List<Long> held = queue.heartbeat("node-a", List.of(1L, 2L), Duration.ofSeconds(60));
+
+		assertThat(held).containsExactly(1L);
+		verify(batchRepository).extendLeases(eq(List.of(1L, 2L)), eq("node-a"), any(), any());
+	}
+
+	@Test
+	void resultOfALostLeaseIsDropped() {
+		TranslationBatchRecord batch = batch(1L, BatchStatus.CLAIMED, "node-b", 1);
+		when(batchRepository.complete(eq(1L), eq("node-a"), anyString(), anyLong(), anyLong(), anyLong(), any()))
+				.thenReturn(0);
+
+		queue.complete(batch, "node-a", List.of(), new TokenUsage());
+
+		verify(batchRepository, never()).countByJobIdAndStatus(anyString(), any());
+		verify(jobRepository, never()).finishRunning(anyString(), any(), any());
+	}
+
+	private static TranslationBatchRecord batch(Long id, BatchStatus status, String owner, int attempts) {
+		TranslationBatchRecord batch = new TranslationBatchRecord();
+		batch.setId(id);
+		batch.setJobId("job");
+		batch.setStatus(status);
+		batch.setLeaseOwner(owner);
+		batch.setAttempts(attempts);
+		return batch;
+	}
+}
@@ -0,0 +1,25 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class GeminiTranslationServiceParsingTest {
+
+	@Test
+	void splitsOnSeparatorKeepingEmptyParts() {
+		assertThat(GeminiTranslationService.splitTranslations(" one ||| two|||||| three "))
+				.containsExactly("one", "two", "", "three");
+		assertThat(GeminiTranslationService.splitTranslations("only one")).containsExactly("only one");
+		assertThat(GeminiTranslationService.splitTranslations("a|||")).containsExactly("a", "");
+	}
+
+	@Test
+	void stripsLeadingAsciiNumberingOnly() {
+		assertThat(GeminiTranslationService.stripNumbering("12.  សួស្តី")).isEqualTo("សួស្តី");
+		assertThat(GeminiTranslationService.stripNumbering("3.5 km")).isEqualTo("5 km");
+		assertThat(GeminiTranslationService.stripNumbering("១២. សួស្តី")).isEqualTo("១២. សួស្តី");
+		assertThat(GeminiTranslationService.stripNumbering("No number")).isEqualTo("No number");
+		assertThat(GeminiTranslationService.stripNumbering("42")).isEqualTo("42");
+	}
+}
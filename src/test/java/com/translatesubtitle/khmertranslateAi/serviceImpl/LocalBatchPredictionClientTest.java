@@ -0,0 +1,45 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.translatesubtitle.khmertranslateAi.dto.BatchPredictionResult;
+import com.translatesubtitle.khmertranslateAi.dto.GeminiDtos;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+class LocalBatchPredictionClientTest {
+
+	private final GeminiPromptFactory promptFactory = new GeminiPromptFactory(null, new GeminiApiConfig());
+	private final LocalBatchPredictionClient client = new LocalBatchPredictionClient();
+
+	@Test
+	void answersEveryRequestByKeyOnceDone() {
+		Map<String, GeminiDtos.GeminiRequest> requests = new LinkedHashMap<>();
+		requests.put("job/0/Khmer/0", promptFactory.buildInlineRequest(List.of(entry(1, "Hello."), entry(2, "Goodbye.")), "Khmer"));
+		requests.put("job/0/Khmer/1", promptFactory.buildInlineRequest(List.of(entry(3, "See you.")), "Khmer"));
+
+		String name = client.submit("bulk-test", requests).block();
+
+		assertThat(client.poll(name).block().isDone()).isFalse();
+		BatchPredictionResult result = client.poll(name).block();
+		assertThat(result.state()).isEqualTo(BatchPredictionResult.State.SUCCEEDED);
+		assertThat(result.responses()).containsOnlyKeys("job/0/Khmer/0", "job/0/Khmer/1");
+		assertThat(GeminiTranslationService.splitTranslations(text(result.responses().get("job/0/Khmer/0"))))
+				.containsExactly("Hello.", "Goodbye.");
+		assertThat(GeminiTranslationService.splitTranslations(text(result.responses().get("job/0/Khmer/1"))))
+				.containsExactly("See you.");
+	}
+
+	private static String text(GeminiDtos.GeminiResponse response) {
+		return response.candidates().get(0).content().parts().get(0).text();
+	}
+
+	private static SubtitleEntry entry(int sequence, String text) {
+		return new SubtitleEntry(sequence, "00:00:01,000", "00:00:02,000", text);
+	}
+}
@@ -0,0 +1,47 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ModelRouterTest {
+
+	// easy-max-letters 40, hard-min-words 14, hard-long-word-ratio 0.3, long-word-letters 9
+	private final ModelRouter router = new ModelRouter(new GeminiApiConfig(), new SimpleMeterRegistry(), true,
+			"gemini-2.5-flash-lite", 100, 4, "", 0, 0, 40, 14, 0.3, 9);
+
+	@Test
+	void shortLinesAreEasy() {
+		assertThat(router.classify(entry("OK."))).isEqualTo(ModelRouter.Tier.FAST);
+		assertThat(router.classify(entry("Thank you, John."))).isEqualTo(ModelRouter.Tier.FAST);
+		// 40 letters, mostly in long words: still easy; one letter more and the density counts
+		assertThat(router.classify(entry("Extraordinary circumstances necessitated it."))).isEqualTo(ModelRouter.Tier.FAST);
+		assertThat(router.classify(entry("Extraordinary circumstances necessitated its."))).isEqualTo(ModelRouter.Tier.STRONG);
+	}
+
+	@Test
+	void longLinesOfPlainWordsStayFast() {
+		assertThat(router.classify(entry("We should leave now before the rain gets much worse here.")))
+				.isEqualTo(ModelRouter.Tier.FAST);
+	}
+
+	@Test
+	void manyWordsAreHard() {
+		assertThat(router.classify(entry("I told you we would go to the shop and buy some milk and eggs today.")))
+				.isEqualTo(ModelRouter.Tier.STRONG);
+	}
+
+	@Test
+	void denseLinesAreHard() {
+		assertThat(router.classify(entry("Photosynthesis requires chlorophyll inside chloroplasts.")))
+				.isEqualTo(ModelRouter.Tier.STRONG);
+	}
+
+	private static SubtitleEntry entry(String text) {
+		return new SubtitleEntry(1, "00:00:01,000", "00:00:02,000", text);
+	}
+}
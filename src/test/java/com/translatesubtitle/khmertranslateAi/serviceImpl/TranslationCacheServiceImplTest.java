@@ -0,0 +1,66 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.translatesubtitle.khmertranslateAi.dto.CachedTranslation;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+class TranslationCacheServiceImplTest {
+
+	private final List<SubtitleEntry> entries = List.of(new SubtitleEntry(1, "00:00:01,000", "00:00:02,000", "Hello."));
+
+	@Test
+	void keyDependsOnLanguageAndModel() {
+		TranslationCacheServiceImpl cache = new TranslationCacheServiceImpl(new GeminiApiConfig(), 1024);
+		TranslationCacheServiceImpl otherModel = new TranslationCacheServiceImpl(new GeminiApiConfig() {
+			@Override
+			public String getModel() {
+				return "gemini-2.5-pro";
+			}
+		}, 1024);
+
+		assertThat(cache.cacheKey(entries, "Khmer")).isEqualTo(cache.cacheKey(entries, " khmer "));
+		assertThat(cache.cacheKey(entries, "Khmer")).isNotEqualTo(cache.cacheKey(entries, "Thai"));
+		assertThat(cache.cacheKey(entries, "Khmer")).isNotEqualTo(otherModel.cacheKey(entries, "Khmer"));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedOnceOverMaxBytes() {
+		// Each translation is estimated at 274 bytes: two fit, three do not
+		TranslationCacheServiceImpl cache = new TranslationCacheServiceImpl(new GeminiApiConfig(), 600);
+		cache.put("a", translation("A"));
+		cache.put("b", translation("B"));
+		assertThat(cache.get("a")).isPresent();
+
+		cache.put("c", translation("C"));
+
+		assertThat(cache.get("a")).isPresent();
+		assertThat(cache.get("b")).isEmpty();
+		assertThat(cache.get("c")).isPresent();
+	}
+
+	@Test
+	void entriesAreCopiedInAndOut() {
+		TranslationCacheServiceImpl cache = new TranslationCacheServiceImpl(new GeminiApiConfig(), 1024);
+		CachedTranslation stored = translation("A");
+		cache.put("a", stored);
+
+		stored.entries().get(0).setTranslatedText("changed after put");
+		cache.get("a").get().entries().get(0).setTranslatedText("changed after get");
+
+		assertThat(cache.get("a").get().entries().get(0).getTranslatedText()).isEqualTo("km:A");
+	}
+
+	private static CachedTranslation translation(String text) {
+		SubtitleEntry entry = new SubtitleEntry(1, "00:00:01,000", "00:00:02,000", text);
+		entry.setTranslatedText("km:" + text);
+		List<SubtitleEntry> translated = new ArrayList<>();
+		translated.add(entry);
+		return new CachedTranslation("x".repeat(100), translated);
+	}
+}
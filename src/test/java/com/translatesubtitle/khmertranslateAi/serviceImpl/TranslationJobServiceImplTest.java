@@ -0,0 +1,144 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.translatesubtitle.khmertranslateAi.dto.JobStatus;
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+import com.translatesubtitle.khmertranslateAi.dto.TranslationJob;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class TranslationJobServiceImplTest {
+
+	private static final String TRANSLATION = "ស្វាគមន៍";
+
+	@TempDir
+	Path root;
+
+	private final GeminiApiConfig config = new GeminiApiConfig();
+	// Every Gemini call takes 50 ms and translates each line of a full batch; one batch at a time
+	private final AtomicInteger calls = new AtomicInteger();
+	private final CountDownLatch firstCalls = new CountDownLatch(2);
+	private final WebClient webClient = WebClient.builder().baseUrl("http://gemini.test").exchangeFunction(request -> {
+		calls.incrementAndGet();
+		firstCalls.countDown();
+		String text = String.join("|||", Collections.nCopies(config.getBatchSize(), TRANSLATION));
+		String response = "{\"candidates\":[{\"content\":{\"role\":\"model\",\"parts\":[{\"text\":\"" + text
+				+ "\"}]},\"index\":0}]}";
+		return Mono.delay(Duration.ofMillis(50)).map(tick -> ClientResponse.create(HttpStatus.OK)
+				.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(response).build());
+	}).build();
+	private final TranslationJobServiceImpl service = service();
+
+	@Test
+	void cancelledJobStopsCallingGeminiAndEndsCancelled() throws Exception {
+		config.setBatchSize(1);
+		Path file = root.resolve("job-1").resolve("movie.srt");
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, cues(1, 20), StandardCharsets.UTF_8);
+		TranslationJob job = service.createJob(List.of(file));
+
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread translation = new Thread(() -> {
+			try {
+				service.translate(job, List.of("Khmer"), false);
+			} catch (Throwable e) {
+				failure.set(e);
+			}
+		});
+		translation.start();
+		assertThat(firstCalls.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(service.cancel(job.getJobId())).isTrue();
+		translation.join(5000);
+		int callsAtCancel = calls.get();
+		Thread.sleep(200);
+
+		assertThat(failure.get()).isInstanceOf(CancellationException.class);
+		assertThat(job.getStatus()).isEqualTo(JobStatus.CANCELLED);
+		assertThat(calls.get()).isEqualTo(callsAtCancel).isLessThan(20);
+		assertThat(file.getParent()).doesNotExist();
+	}
+
+	@Test
+	void streamingUploadIsTranslatedWhileItArrives() throws Exception {
+		config.setBatchSize(100);
+		Path file = root.resolve("job-2").resolve("upload.srt");
+		Files.createDirectories(file.getParent());
+		TranslationJob job = service.createStreamingJob(file);
+		PipedOutputStream upload = new PipedOutputStream();
+		PipedInputStream received = new PipedInputStream(upload);
+
+		AtomicReference<Map<String, List<SubtitleEntry>>> result = new AtomicReference<>();
+		Thread translation = new Thread(() -> result.set(service.translateStreaming(job, received, List.of("Khmer"), false)));
+		translation.start();
+		// More than the 16 KB the parser reads to detect the charset
+		byte[] head = cues(1, 600).getBytes(StandardCharsets.UTF_8);
+		assertThat(head.length).isGreaterThan(16 * 1024);
+		upload.write(head);
+		upload.flush();
+		// The first batches go to Gemini before the rest of the upload has been sent
+		assertThat(firstCalls.await(5, TimeUnit.SECONDS)).isTrue();
+		upload.write(cues(601, 700).getBytes(StandardCharsets.UTF_8));
+		upload.close();
+		translation.join(5000);
+
+		assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+		assertThat(job.getEntriesByFile().get(file)).hasSize(700);
+		assertThat(result.get().get("Khmer")).extracting(SubtitleEntry::getSequence)
+				.containsExactlyElementsOf(IntStream.rangeClosed(1, 700).boxed().toList());
+		assertThat(result.get().get("Khmer")).extracting(SubtitleEntry::getTranslatedText).containsOnly(TRANSLATION);
+		assertThat(Files.readString(TranslationJob.outputFile(file, "Khmer"), StandardCharsets.UTF_8)).contains(TRANSLATION);
+		assertThat(calls.get()).isEqualTo(7);
+	}
+
+	private TranslationJobServiceImpl service() {
+		config.setKey("test-key");
+		config.setConcurrentRequests(1);
+		config.setDelayBetweenBatchRequestMs(0);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		GeminiTranslationService translationService = new GeminiTranslationService(webClient, config,
+				new GeminiPromptFactory(webClient, config), new TokenUsageService(registry, 50),
+				new TranslationVerifier(false, 0.4, 8, 2, 10), Schedulers.parallel(), new BatchReorderBuffer(registry),
+				new ModelRouter(config, registry, false, "", 0, 0, "", 0, 0, 40, 14, 0.3, 9));
+		return new TranslationJobServiceImpl(new SubtitleParsingServiceImpl(), new SRTServiceImpl(),
+				new TranslationCacheServiceImpl(config, 1024 * 1024), translationService,
+				new IncrementalTranslationService(translationService), 10);
+	}
+
+	private static String cues(int from, int to) {
+		StringBuilder srt = new StringBuilder();
+		for (int i = from; i <= to; i++) {
+			String second = String.format("%02d:%02d:%02d", i / 3600, i / 60 % 60, i % 60);
+			srt.append(i).append('\n').append(second).append(",000 --> ").append(second).append(",500\nLine ").append(i)
+					.append(".\n\n");
+		}
+		return srt.toString();
+	}
+}
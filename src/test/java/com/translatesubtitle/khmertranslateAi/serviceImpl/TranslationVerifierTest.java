@@ -0,0 +1,39 @@
+package com.translatesubtitle.khmertranslateAi.serviceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.translatesubtitle.khmertranslateAi.dto.SubtitleEntry;
+
+class TranslationVerifierTest {
+
+	private final TranslationVerifier verifier = new TranslationVerifier(true, 0.4, 8, 2, 10);
+
+	@Test
+	void flagsMarkersCopiesAndWrongScript() {
+		List<SubtitleEntry> translated = List.of(
+				translated("Where are you going tonight?", "តើអ្នកទៅណាយប់នេះ?"),
+				translated("Where are you going tonight?", "Where are you going tonight?"),
+				translated("Where are you going tonight?", "Where are you going tonight? [API Error]"),
+				translated("Where are you going tonight?", "Où vas-tu ce soir ?"),
+				translated("John!", "John!"),
+				translated("Sokha is waiting at Phnom Penh station.", "Sokha កំពុងរង់ចាំនៅស្ថានីយ៍ភ្នំពេញ។"));
+
+		assertThat(verifier.failingLines(translated, "Khmer")).containsExactly(1, 2, 3);
+	}
+
+	@Test
+	void skipsScriptCheckForLatinLanguages() {
+		assertThat(verifier.fails(translated("Where are you going tonight?", "Où vas-tu ce soir ?"), "French")).isFalse();
+		assertThat(verifier.fails(translated("Where are you going tonight?", "Where are you going tonight?"), "French")).isTrue();
+	}
+
+	private static SubtitleEntry translated(String text, String translation) {
+		SubtitleEntry entry = new SubtitleEntry(1, "00:00:01,000", "00:00:02,000", text);
+		entry.setTranslatedText(translation);
+		return entry;
+	}
+}